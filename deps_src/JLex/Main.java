@@ -291,6 +291,8 @@ class CSpec
   boolean m_unix;
   boolean m_public;
   boolean m_ignorecase;
+  boolean m_switch; /* Code the DFA as a switch, not as tables. */
+  boolean m_pack; /* Keep the minimized rows of the transition table. */
 
   char m_init_code[];
   int m_init_read;
@@ -373,6 +375,8 @@ class CSpec
         m_public = false;
 	m_yyeof = false;
 	m_ignorecase = false;
+	m_switch = false;
+	m_pack = false;
 
 	/* Initialize variables for JLex runtime options. */
 	m_verbose = true;
@@ -428,6 +432,7 @@ class CEmit
     **************************************************************/
   private CSpec m_spec;
   private java.io.PrintWriter m_outstream;
+  private boolean m_direct; /* Is the DFA coded as a switch? */
 
   /***************************************************************
     Constants: Anchor Types
@@ -442,6 +447,10 @@ class CEmit
   private final boolean EDBG = true;
   private final boolean NOT_EDBG = false;
 
+  /* Estimated bytecode size up to which %switch codes the DFA;
+     the JIT does not compile methods of more than 8000 bytes. */
+  private final int DIRECT_LIMIT = 7500;
+
   /***************************************************************
     Function: CEmit
     Description: Constructor.
@@ -463,6 +472,7 @@ class CEmit
       {
 	m_spec = null;
 	m_outstream = null;
+	m_direct = false;
       }
 
   /***************************************************************
@@ -617,6 +627,18 @@ class CEmit
 	    print_details();
 	  }
 
+	  /* %switch: code the DFA unless that would make the driver
+	     too large for the JIT to compile. */
+	  if (m_spec.m_switch)
+	    {
+	      m_direct = direct_size() <= DIRECT_LIMIT;
+	      if (false == m_direct)
+		{
+		  System.out.println("DFA too large for %switch; "
+				     + "emitting transition tables.");
+		}
+	    }
+
 	  emit_header();
 	  emit_construct();
 	  emit_helpers();
@@ -642,23 +664,23 @@ class CEmit
 	    CUtility.ASSERT(null != m_outstream);
 	  }
 	  
-	  /* Constants */
-	  m_outstream.println("\tprivate final int YY_BUFFER_SIZE = 512;");
+	  /* Constants; static, as the tables use them */
+	  m_outstream.println("\tprivate static final int YY_BUFFER_SIZE = 512;");
 
-	  m_outstream.println("\tprivate final int YY_F = -1;");
-	  m_outstream.println("\tprivate final int YY_NO_STATE = -1;");
+	  m_outstream.println("\tprivate static final int YY_F = -1;");
+	  m_outstream.println("\tprivate static final int YY_NO_STATE = -1;");
 
-	  m_outstream.println("\tprivate final int YY_NOT_ACCEPT = 0;");
-	  m_outstream.println("\tprivate final int YY_START = 1;");
-	  m_outstream.println("\tprivate final int YY_END = 2;");
-	  m_outstream.println("\tprivate final int YY_NO_ANCHOR = 4;");
+	  m_outstream.println("\tprivate static final int YY_NOT_ACCEPT = 0;");
+	  m_outstream.println("\tprivate static final int YY_START = 1;");
+	  m_outstream.println("\tprivate static final int YY_END = 2;");
+	  m_outstream.println("\tprivate static final int YY_NO_ANCHOR = 4;");
 
 	  // internal
-	  m_outstream.println("\tprivate final int YY_BOL = "+m_spec.BOL+";");
-	  m_outstream.println("\tprivate final int YY_EOF = "+m_spec.EOF+";");
+	  m_outstream.println("\tprivate static final int YY_BOL = "+m_spec.BOL+";");
+	  m_outstream.println("\tprivate static final int YY_EOF = "+m_spec.EOF+";");
 	  // external
 	  if (m_spec.m_integer_type || true == m_spec.m_yyeof)
-	    m_outstream.println("\tpublic final int YYEOF = -1;");
+	    m_outstream.println("\tpublic static final int YYEOF = -1;");
 	  
           /* User specified class code. */
 	  if (null != m_spec.m_class_code)
@@ -802,6 +824,41 @@ class CEmit
 	  m_outstream.println("\t}");
 	  m_outstream.println();
 
+	  /* Function: yyreset - start over on another input, keeping the
+	     buffer.  The user specified constructor code is not run again. */
+	  m_outstream.print("\t");
+	  if (true == m_spec.m_public) {
+	    m_outstream.print("public ");
+	  }
+	  m_outstream.println("void yyreset (java.io.Reader reader) {");
+	  m_outstream.println("\t\tif (null == reader) {");
+	  m_outstream.println("\t\t\tthrow (new Error(\"Error: Bad input "
+				 + "stream initializer.\"));");
+	  m_outstream.println("\t\t}");
+	  m_outstream.println("\t\tif (reader instanceof java.io.BufferedReader) {");
+	  m_outstream.println("\t\t\tyy_reader = (java.io.BufferedReader) reader;");
+	  m_outstream.println("\t\t} else {");
+	  m_outstream.println("\t\t\tyy_reader = new java.io.BufferedReader(reader);");
+	  m_outstream.println("\t\t}");
+	  m_outstream.println("\t\tyy_buffer_read = 0;");
+	  m_outstream.println("\t\tyy_buffer_index = 0;");
+	  m_outstream.println("\t\tyy_buffer_start = 0;");
+	  m_outstream.println("\t\tyy_buffer_end = 0;");
+	  if (m_spec.m_count_chars)
+	    {
+	      m_outstream.println("\t\tyychar = 0;");
+	    }
+	  if (m_spec.m_count_lines)
+	    {
+	      m_outstream.println("\t\tyyline = 0;");
+	    }
+	  m_outstream.println("\t\tyy_at_bol = true;");
+	  m_outstream.println("\t\tyy_lexical_state = YYINITIAL;");
+	  m_outstream.println("\t\tyy_eof_done = false;");
+	  m_outstream.println("\t\tyy_last_was_cr = false;");
+	  m_outstream.println("\t}");
+	  m_outstream.println();
+
 	}
 
   /***************************************************************
@@ -829,7 +886,7 @@ class CEmit
 		  CUtility.ASSERT(null != state);
 		}
 	      
-	      m_outstream.println("\tprivate final int " 
+	      m_outstream.println("\tprivate static final int " 
 				     + state 
 				     + " = " 
 				     + (m_spec.m_states.get(state)).toString() 
@@ -837,7 +894,7 @@ class CEmit
 	      /*++index;*/
 	    }
 
-	  m_outstream.println("\tprivate final int yy_state_dtrans[] = {");
+	  m_outstream.println("\tprivate static final int yy_state_dtrans[] = {");
 	  for (index = 0; index < m_spec.m_state_dtrans.length; ++index)
 	    {
 	      m_outstream.print("\t\t" + m_spec.m_state_dtrans[index]);
@@ -1043,9 +1100,9 @@ class CEmit
 	m_outstream.println("\t}");
 
 	/* Function: yy_error */
-	m_outstream.println("\tprivate final int YY_E_INTERNAL = 0;");
-	m_outstream.println("\tprivate final int YY_E_MATCH = 1;");
-	m_outstream.println("\tprivate java.lang.String yy_error_string[] = {");
+	m_outstream.println("\tprivate static final int YY_E_INTERNAL = 0;");
+	m_outstream.println("\tprivate static final int YY_E_MATCH = 1;");
+	m_outstream.println("\tprivate static final java.lang.String yy_error_string[] = {");
 	m_outstream.println("\t\t\"Error: Internal error.\\n\",");
 	m_outstream.println("\t\t\"Error: Unmatched input.\\n\"");
 	m_outstream.println("\t};");
@@ -1068,20 +1125,22 @@ class CEmit
 	m_outstream.println("\t}");*/
 
 
-	// Function: private int [][] unpackFromString(int size1, int size2, String st)
+	if (m_direct)
+	  {
+	    return;
+	  }
+
+	// Function: private static int [][] unpackFromString(int size1, int size2, String st)
 	// Added 6/24/98 Raimondas Lencevicius
-	// May be made more efficient by replacing String operations
+	// Static, and walks the String instead of cutting it up, as the
+	// tables are decoded once for the class when it is initialized.
 	// Assumes correctly formed input String. Performs no error checking
-	m_outstream.println("\tprivate int[][] unpackFromString"+
+	m_outstream.println("\tprivate static int[][] unpackFromString"+
 			    "(int size1, int size2, String st) {");
-	m_outstream.println("\t\tint colonIndex = -1;");
-	m_outstream.println("\t\tString lengthString;");
+	m_outstream.println("\t\tint index = 0;");
 	m_outstream.println("\t\tint sequenceLength = 0;");
 	m_outstream.println("\t\tint sequenceInteger = 0;");
 	m_outstream.println();
-	m_outstream.println("\t\tint commaIndex;");
-	m_outstream.println("\t\tString workString;");
-	m_outstream.println();
 	m_outstream.println("\t\tint res[][] = new int[size1][size2];");
 	m_outstream.println("\t\tfor (int i= 0; i < size1; i++) {");
 	m_outstream.println("\t\t\tfor (int j= 0; j < size2; j++) {");
@@ -1090,29 +1149,44 @@ class CEmit
 	m_outstream.println("\t\t\t\t\tsequenceLength--;");
 	m_outstream.println("\t\t\t\t\tcontinue;");
 	m_outstream.println("\t\t\t\t}");
-	m_outstream.println("\t\t\t\tcommaIndex = st.indexOf(',');");
-	m_outstream.println("\t\t\t\tworkString = (commaIndex==-1) ? st :");
-	m_outstream.println("\t\t\t\t\tst.substring(0, commaIndex);");
-	m_outstream.println("\t\t\t\tst = st.substring(commaIndex+1);");  
-	m_outstream.println("\t\t\t\tcolonIndex = workString.indexOf(':');");
-	m_outstream.println("\t\t\t\tif (colonIndex == -1) {");
-	m_outstream.println("\t\t\t\t\tres[i][j]=Integer.parseInt(workString);");
-	m_outstream.println("\t\t\t\t\tcontinue;");
+	m_outstream.println("\t\t\t\tboolean negative = st.charAt(index) == '-';");
+	m_outstream.println("\t\t\t\tif (negative) index++;");
+	m_outstream.println("\t\t\t\tint value = 0;");
+	m_outstream.println("\t\t\t\tchar c;");
+	m_outstream.println("\t\t\t\twhile (index < st.length() &&");
+	m_outstream.println("\t\t\t\t       (c = st.charAt(index)) >= '0' && c <= '9') {");
+	m_outstream.println("\t\t\t\t\tvalue = 10 * value + (c - '0');");
+	m_outstream.println("\t\t\t\t\tindex++;");
 	m_outstream.println("\t\t\t\t}");
-	m_outstream.println("\t\t\t\tlengthString =");
-	m_outstream.println("\t\t\t\t\tworkString.substring(colonIndex+1);");
-	m_outstream.println("\t\t\t\tsequenceLength="+
-			    "Integer.parseInt(lengthString);");
-	m_outstream.println("\t\t\t\tworkString="+
-			    "workString.substring(0,colonIndex);");
-	m_outstream.println("\t\t\t\tsequenceInteger="+
-			    "Integer.parseInt(workString);");
-	m_outstream.println("\t\t\t\tres[i][j] = sequenceInteger;");
-	m_outstream.println("\t\t\t\tsequenceLength--;");
+	m_outstream.println("\t\t\t\tres[i][j] = negative ? -value : value;");
+	m_outstream.println("\t\t\t\tif (index < st.length() && "+
+			    "st.charAt(index) == ':') {");
+	m_outstream.println("\t\t\t\t\tsequenceInteger = res[i][j];");
+	m_outstream.println("\t\t\t\t\tsequenceLength = 0;");
+	m_outstream.println("\t\t\t\t\twhile (++index < st.length() &&");
+	m_outstream.println("\t\t\t\t\t       (c = st.charAt(index)) >= '0' && c <= '9') {");
+	m_outstream.println("\t\t\t\t\t\tsequenceLength = 10 * sequenceLength + (c - '0');");
+	m_outstream.println("\t\t\t\t\t}");
+	m_outstream.println("\t\t\t\t\tsequenceLength--;");
+	m_outstream.println("\t\t\t\t}");
+	m_outstream.println("\t\t\t\tindex++; // the comma");
 	m_outstream.println("\t\t\t}");
 	m_outstream.println("\t\t}");
 	m_outstream.println("\t\treturn res;");
 	m_outstream.println("\t}");
+
+	if (false == m_spec.m_pack && trans_fits_short())
+	  {
+	    /* Function: yy_short_table */
+	    m_outstream.println("\tprivate static short[] yy_short_table"
+				+ "(int table[]) {");
+	    m_outstream.println("\t\tshort res[] = new short[table.length];");
+	    m_outstream.println("\t\tfor (int i = 0; i < table.length; i++) {");
+	    m_outstream.println("\t\t\tres[i] = (short) table[i];");
+	    m_outstream.println("\t\t}");
+	    m_outstream.println("\t\treturn res;");
+	    m_outstream.println("\t}");
+	  }
       }
 
   /***************************************************************
@@ -1169,7 +1243,7 @@ class CEmit
 	    CUtility.ASSERT(null != m_outstream);
 	  }
 
-	m_outstream.println("\tprivate int yy_acpt[] = {");
+	m_outstream.println("\tprivate static final int yy_acpt[] = {");
 	size = m_spec.m_accept_vector.size();
 	for (elem = 0; elem < size; ++elem)
 	  {
@@ -1212,17 +1286,30 @@ class CEmit
 	  }
 	m_outstream.println("\t};");
 
+	if (m_direct)
+	  {
+	    /* the transitions are coded in the driver */
+	    m_outstream.println();
+	    return;
+	  }
+
 	// CSA: modified yy_cmap to use string packing 9-Aug-1999
 	int[] yy_cmap = new int[m_spec.m_ccls_map.length];
 	for (i = 0; i < m_spec.m_ccls_map.length; ++i)
 	    yy_cmap[i] = m_spec.m_col_map[m_spec.m_ccls_map[i]];
-	m_outstream.print("\tprivate int yy_cmap[] = unpackFromString(");
+	m_outstream.print("\tprivate static final int yy_cmap[] = unpackFromString(");
 	emit_table_as_string(new int[][] { yy_cmap });
 	m_outstream.println(")[0];");
 	m_outstream.println();
 
+	if (false == m_spec.m_pack)
+	  {
+	    emit_flat_table();
+	    return;
+	  }
+
 	// CSA: modified yy_rmap to use string packing 9-Aug-1999
-	m_outstream.print("\tprivate int yy_rmap[] = unpackFromString(");
+	m_outstream.print("\tprivate static final int yy_rmap[] = unpackFromString(");
 	emit_table_as_string(new int[][] { m_spec.m_row_map });
 	m_outstream.println(")[0];");
 	m_outstream.println();
@@ -1238,12 +1325,70 @@ class CEmit
 	    yy_nxt[elem] = dtrans.m_dtrans;
 	}
 	m_outstream.print
-	  ("\tprivate int yy_nxt[][] = unpackFromString(");
+	  ("\tprivate static final int yy_nxt[][] = unpackFromString(");
 	emit_table_as_string(yy_nxt);
 	m_outstream.println(");");
 	m_outstream.println();
       }
 
+  /***************************************************************
+    Function: trans_fits_short
+    Description: Can the states be held in shorts?
+    **************************************************************/
+  private boolean trans_fits_short
+    (
+     )
+      {
+	return m_spec.m_row_map.length <= Short.MAX_VALUE;
+      }
+
+  /***************************************************************
+    Function: emit_flat_table
+    Description: Emits the transition table as one array, yy_trans,
+    with a row of YY_CLASSES entries for every state, so that the
+    driver finds the next state with a single lookup:
+        yy_trans[yy_state * YY_CLASSES + yy_cmap[yy_lookahead]]
+    The rows that CMinimize found to be the same are written out
+    for each of their states; %pack keeps them shared, in yy_rmap
+    and yy_nxt, for specs whose table would grow too large.
+    **************************************************************/
+  private void emit_flat_table
+    (
+     )
+      throws java.io.IOException
+      {
+	int states = m_spec.m_row_map.length;
+	int classes = m_spec.m_dtrans_ncols;
+	int[] yy_trans = new int[states * classes];
+
+	for (int state = 0; state < states; ++state)
+	  {
+	    CDTrans dtrans = (CDTrans) 
+	      m_spec.m_dtrans_vector.elementAt(m_spec.m_row_map[state]);
+	    CUtility.ASSERT(dtrans.m_dtrans.length == classes);
+	    System.arraycopy(dtrans.m_dtrans, 0, 
+			     yy_trans, state * classes, classes);
+	  }
+
+	m_outstream.println("\tprivate static final int YY_CLASSES = " 
+			    + classes + ";");
+	if (trans_fits_short())
+	  {
+	    m_outstream.print("\tprivate static final short yy_trans[] = "
+			      + "yy_short_table(unpackFromString(");
+	    emit_table_as_string(new int[][] { yy_trans });
+	    m_outstream.println(")[0]);");
+	  }
+	else
+	  {
+	    m_outstream.print("\tprivate static final int yy_trans[] = "
+			      + "unpackFromString(");
+	    emit_table_as_string(new int[][] { yy_trans });
+	    m_outstream.println(")[0];");
+	  }
+	m_outstream.println();
+      }
+
   /***************************************************************
     Function: emit_driver
     Description: Output an integer table as a string.  Written by
@@ -1330,6 +1475,227 @@ class CEmit
 	m_outstream.print("\""+outstr+"\"");
   }
 
+  /***************************************************************
+    Function: direct_ranges
+    Description: Divides the input characters, and BOL and EOF,
+    into ranges with the same transition in a row of the
+    transition table.  Range i starts at lo[i]; the last range,
+    from the end of the character map on, has no transition.
+    Returns the number of ranges.
+    **************************************************************/
+  private int direct_ranges
+    (
+     int row,
+     int lo[],
+     int next[]
+     )
+      {
+	int dtrans[] = ((CDTrans) m_spec.m_dtrans_vector.elementAt(row)).m_dtrans;
+	int size = m_spec.m_ccls_map.length;
+	int n = 0;
+
+	for (int c = 0; c < size; ++c)
+	  {
+	    int state = dtrans[m_spec.m_col_map[m_spec.m_ccls_map[c]]];
+	    if (0 == n || state != next[n - 1])
+	      {
+		lo[n] = c;
+		next[n] = state;
+		++n;
+	      }
+	  }
+	if (CDTrans.F != next[n - 1])
+	  {
+	    lo[n] = size;
+	    next[n] = CDTrans.F;
+	    ++n;
+	  }
+	return n;
+      }
+
+  /***************************************************************
+    Function: direct_size
+    Description: Estimates the bytecode size of the coded DFA.
+    **************************************************************/
+  private int direct_size
+    (
+     )
+      {
+	int lo[] = new int[m_spec.m_ccls_map.length + 1];
+	int next[] = new int[m_spec.m_ccls_map.length + 1];
+	/* the loop around the switch, and its case labels */
+	int size = 200 + 8 * m_spec.m_row_map.length;
+
+	for (int row = 0; row < m_spec.m_dtrans_vector.size(); ++row)
+	  {
+	    int n = direct_ranges(row, lo, next);
+	    if (n > 1)
+	      {
+		size = size + 3 + direct_ranges_size(lo, next, 0, n);
+	      }
+	  }
+	return size;
+      }
+
+  /***************************************************************
+    Function: direct_ranges_size
+    Description: Estimates the bytecode size of the binary search
+    that emit_direct_ranges emits.
+    **************************************************************/
+  private int direct_ranges_size
+    (
+     int lo[],
+     int next[],
+     int from,
+     int to
+     )
+      {
+	if (1 == to - from)
+	  {
+	    /* a store of the next state */
+	    return (CDTrans.F != next[from]) ? 4 : 0;
+	  }
+
+	int mid = (from + to) / 2;
+	int left = has_transition(next, from, mid) 
+	  ? direct_ranges_size(lo, next, from, mid) : 0;
+	int right = has_transition(next, mid, to) 
+	  ? direct_ranges_size(lo, next, mid, to) : 0;
+	/* a compare, and a jump past the else part */
+	return 6 + left + right + ((left > 0 && right > 0) ? 3 : 0);
+      }
+
+  /***************************************************************
+    Function: emit_direct
+    Description: Emits the transitions of the DFA as a switch on
+    the state, each case of which finds the next state by a binary
+    search of the ranges of the lookahead character.  States with
+    the same row in the transition table share their case.
+    **************************************************************/
+  private void emit_direct
+    (
+     String tabs
+     )
+      throws java.io.IOException
+      {
+	int lo[] = new int[m_spec.m_ccls_map.length + 1];
+	int next[] = new int[m_spec.m_ccls_map.length + 1];
+
+	m_outstream.println(tabs + "switch (yy_state) {");
+	for (int row = 0; row < m_spec.m_dtrans_vector.size(); ++row)
+	  {
+	    int n = direct_ranges(row, lo, next);
+	    if (1 == n)
+	      {
+		/* no transitions: yy_next_state stays YY_F */
+		continue;
+	      }
+	    for (int state = 0; state < m_spec.m_row_map.length; ++state)
+	      {
+		if (row == m_spec.m_row_map[state])
+		  {
+		    m_outstream.println(tabs + "case " + state + ":");
+		  }
+	      }
+	    emit_direct_ranges(tabs + "\t", lo, next, 0, n);
+	    m_outstream.println(tabs + "\tbreak;");
+	  }
+	m_outstream.println(tabs + "}");
+      }
+
+  /***************************************************************
+    Function: emit_direct_ranges
+    Description: Emits the binary search for the lookahead among
+    ranges from through to - 1.
+    **************************************************************/
+  private void emit_direct_ranges
+    (
+     String tabs,
+     int lo[],
+     int next[],
+     int from,
+     int to
+     )
+      throws java.io.IOException
+      {
+	if (1 == to - from)
+	  {
+	    if (CDTrans.F != next[from])
+	      {
+		m_outstream.println(tabs + "yy_next_state = " 
+				    + next[from] + ";");
+	      }
+	    return;
+	  }
+
+	int mid = (from + to) / 2;
+	boolean left = has_transition(next, from, mid);
+	boolean right = has_transition(next, mid, to);
+	if (left && right)
+	  {
+	    m_outstream.println(tabs + "if (yy_lookahead < " 
+				+ direct_char(lo[mid]) + ") {");
+	    emit_direct_ranges(tabs + "\t", lo, next, from, mid);
+	    m_outstream.println(tabs + "} else {");
+	    emit_direct_ranges(tabs + "\t", lo, next, mid, to);
+	    m_outstream.println(tabs + "}");
+	  }
+	else if (left)
+	  {
+	    m_outstream.println(tabs + "if (yy_lookahead < " 
+				+ direct_char(lo[mid]) + ") {");
+	    emit_direct_ranges(tabs + "\t", lo, next, from, mid);
+	    m_outstream.println(tabs + "}");
+	  }
+	else if (right)
+	  {
+	    m_outstream.println(tabs + "if (yy_lookahead >= " 
+				+ direct_char(lo[mid]) + ") {");
+	    emit_direct_ranges(tabs + "\t", lo, next, mid, to);
+	    m_outstream.println(tabs + "}");
+	  }
+      }
+
+  /***************************************************************
+    Function: has_transition
+    Description: Does any of ranges from through to - 1 have a
+    transition?
+    **************************************************************/
+  private boolean has_transition
+    (
+     int next[],
+     int from,
+     int to
+     )
+      {
+	for (int i = from; i < to; ++i)
+	  {
+	    if (CDTrans.F != next[i])
+	      {
+		return true;
+	      }
+	  }
+	return false;
+      }
+
+  /***************************************************************
+    Function: direct_char
+    Description: A character bound of a range, as a character
+    literal if it is a letter or a digit.
+    **************************************************************/
+  private String direct_char
+    (
+     int c
+     )
+      {
+	if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+	    || (c >= '0' && c <= '9'))
+	  {
+	    return "'" + (char) c + "'";
+	  }
+	return Integer.toString(c);
+      }
+
   /***************************************************************
     Function: emit_driver
     Description: 
@@ -1347,6 +1713,11 @@ class CEmit
 	  
 	  emit_table();
 
+	  if (m_direct)
+	    {
+	      emit_direct_match();
+	    }
+
 	  if (m_spec.m_integer_type)
 	    {
 	      m_outstream.print("\tpublic int ");
@@ -1383,6 +1754,12 @@ class CEmit
 	      m_outstream.println(" {");
 	    }
 
+	  if (m_direct)
+	    {
+	      emit_direct_driver();
+	      return;
+	    }
+
 	  m_outstream.println("\t\tint yy_lookahead;");
 	  m_outstream.println("\t\tint yy_anchor = YY_NO_ANCHOR;");
 	  /*m_outstream.println("\t\tint yy_state "
@@ -1417,8 +1794,16 @@ class CEmit
 	  m_outstream.println("\t\t\tyy_next_state = YY_F;");
 	  /*m_outstream.println("\t\t\t\tyy_next_state = "
 				 + "yy_next(yy_state,yy_lookahead);");*/
-	  m_outstream.println("\t\t\tyy_next_state = "
- 	   + "yy_nxt[yy_rmap[yy_state]][yy_cmap[yy_lookahead]];");
+	  if (m_spec.m_pack)
+	    {
+	      m_outstream.println("\t\t\tyy_next_state = "
+		+ "yy_nxt[yy_rmap[yy_state]][yy_cmap[yy_lookahead]];");
+	    }
+	  else
+	    {
+	      m_outstream.println("\t\t\tyy_next_state = "
+		+ "yy_trans[yy_state * YY_CLASSES + yy_cmap[yy_lookahead]];");
+	    }
 
 	  if (NOT_EDBG)
 	    {
@@ -1547,6 +1932,116 @@ class CEmit
 	  m_outstream.println("\t\t}");*/
 	}
   
+  /***************************************************************
+    Function: emit_direct_match
+    Description: For %switch, emits yy_match, which runs the coded
+    DFA from the start of a token to its longest match, and returns
+    the last accepting state (YY_NO_STATE if none), or YY_EOF_MATCH
+    at the end of the input.  It is kept apart from the actions so
+    that it stays small enough for the JIT to compile.
+    **************************************************************/
+  private void emit_direct_match
+    (
+     )
+      throws java.io.IOException
+	{
+	  m_outstream.println("\tprivate static final int YY_EOF_MATCH = -2;");
+	  m_outstream.println("\tprivate int yy_match ()");
+	  m_outstream.println("\t\tthrows java.io.IOException {");
+	  m_outstream.println("\t\tint yy_lookahead;");
+	  m_outstream.println("\t\tint yy_state " 
+				 + "= yy_state_dtrans[yy_lexical_state];");
+	  m_outstream.println("\t\tint yy_next_state;");
+	  m_outstream.println("\t\tint yy_last_accept_state = YY_NO_STATE;");
+    	  m_outstream.println("\t\tboolean yy_initial = true;");
+	  m_outstream.println();
+
+	  m_outstream.println("\t\tyy_mark_start();");
+	  m_outstream.println("\t\tif (YY_NOT_ACCEPT != yy_acpt[yy_state]) {");
+	  m_outstream.println("\t\t\tyy_last_accept_state = yy_state;");
+	  m_outstream.println("\t\t\tyy_mark_end();");
+	  m_outstream.println("\t\t}");
+	  m_outstream.println("\t\twhile (true) {");
+	  m_outstream.println("\t\t\tif (yy_initial && yy_at_bol) "+
+			                 "yy_lookahead = YY_BOL;");
+	  m_outstream.println("\t\t\telse yy_lookahead = yy_advance();");
+	  m_outstream.println("\t\t\tyy_next_state = YY_F;");
+	  emit_direct("\t\t\t");
+	  m_outstream.println("\t\t\tif (YY_EOF == yy_lookahead " 
+				 + "&& true == yy_initial) {");
+	  m_outstream.println("\t\t\t\treturn YY_EOF_MATCH;");
+	  m_outstream.println("\t\t\t}");
+	  m_outstream.println("\t\t\tif (YY_F == yy_next_state) {");
+	  m_outstream.println("\t\t\t\treturn yy_last_accept_state;");
+	  m_outstream.println("\t\t\t}");
+	  m_outstream.println("\t\t\tyy_state = yy_next_state;");
+     	  m_outstream.println("\t\t\tyy_initial = false;");
+	  m_outstream.println("\t\t\tif (YY_NOT_ACCEPT != yy_acpt[yy_state]) {");
+	  m_outstream.println("\t\t\t\tyy_last_accept_state = yy_state;");
+	  m_outstream.println("\t\t\t\tyy_mark_end();");
+	  m_outstream.println("\t\t\t}");
+	  m_outstream.println("\t\t}");
+	  m_outstream.println("\t}");
+	  m_outstream.println();
+	}
+
+  /***************************************************************
+    Function: emit_direct_driver
+    Description: For %switch, emits the body of the lexer function,
+    which matches a token with yy_match and runs its action.
+    **************************************************************/
+  private void emit_direct_driver
+    (
+     )
+      throws java.io.IOException
+	{
+	  m_outstream.println("\t\tint yy_anchor;");
+	  m_outstream.println("\t\tint yy_last_accept_state;");
+	  m_outstream.println();
+	  m_outstream.println("\t\twhile (true) {");
+	  m_outstream.println("\t\t\tyy_last_accept_state = yy_match();");
+
+	  // handle bare EOF.
+	  m_outstream.println("\t\t\tif (YY_EOF_MATCH == yy_last_accept_state) {");
+	  if (null != m_spec.m_eof_code)
+	    {
+	      m_outstream.println("\t\t\t\tyy_do_eof();");
+	    }
+	  if (true == m_spec.m_integer_type)
+	    {
+	      m_outstream.println("\t\t\t\treturn YYEOF;");
+	    }
+	  else if (null != m_spec.m_eof_value_code) 
+	    {
+	      m_outstream.print(new String(m_spec.m_eof_value_code,0,
+						m_spec.m_eof_value_read));
+	    }
+	  else
+	    {
+	      m_outstream.println("\t\t\t\treturn null;");
+	    }
+	  m_outstream.println("\t\t\t}");
+
+	  m_outstream.println("\t\t\tif (YY_NO_STATE == yy_last_accept_state) {");
+	  m_outstream.println("\t\t\t\tthrow (new Error(\"Lexical Error: Unmatched Input.\"));");
+	  m_outstream.println("\t\t\t}");
+
+	  m_outstream.println("\t\t\tyy_anchor = yy_acpt[yy_last_accept_state];");
+	  m_outstream.println("\t\t\tif (0 != (YY_END & yy_anchor)) {");
+	  m_outstream.println("\t\t\t\tyy_move_end();");
+	  m_outstream.println("\t\t\t}");
+	  m_outstream.println("\t\t\tyy_to_mark();");
+
+	  m_outstream.println("\t\t\tswitch (yy_last_accept_state) {");
+	  emit_actions("\t\t\t");
+	  m_outstream.println("\t\t\tdefault:");
+	  m_outstream.println("\t\t\t\tyy_error(YY_E_INTERNAL,false);");
+	  m_outstream.println("\t\t\tcase -1:");
+	  m_outstream.println("\t\t\t}");
+	  m_outstream.println("\t\t}");
+	  m_outstream.println("\t}");
+	}
+
   /***************************************************************
     Function: emit_actions
     Description:     
@@ -5217,6 +5712,12 @@ class CLexGen
     'a', 't', 'e',
     '\0'
     };
+
+  private char m_switch_dir[] = { 
+    '%', 's', 'w', 
+    'i', 't', 'c',
+    'h', '\0'
+    };
   
   private char m_char_dir[] = { 
     '%', 'c', 'h',
@@ -5409,6 +5910,11 @@ class CLexGen
     'b', 'l', 'i', 
     'c', '\0'
     };
+
+  private char m_pack_dir[] = { 
+    '%', 'p', 'a',
+    'c', 'k', '\0'
+    };
   
   /***************************************************************
     Function: userDeclare
@@ -5741,6 +6247,17 @@ class CLexGen
 			  m_spec.m_public = true;
 			  break;
 			}
+		      else if (0 == CUtility.charncmp(m_input.m_line,
+						      0,
+						      m_pack_dir,
+						      0,
+						      m_pack_dir.length - 1))
+			{
+			  /* Keep the packed transition table. */
+			  m_input.m_line_index = m_pack_dir.length;
+			  m_spec.m_pack = true;
+			  break;
+			}
 
 		      /* Bad directive. */
 		      CError.parse_error(CError.E_DIRECT,
@@ -5759,6 +6276,17 @@ class CLexGen
 			  saveStates();
 			  break;
 			}
+		      else if (0 == CUtility.charncmp(m_input.m_line,
+						      0,
+						      m_switch_dir,
+						      0,
+						      m_switch_dir.length - 1))
+			{
+			  /* Code the DFA as a switch. */
+			  m_input.m_line_index = m_switch_dir.length;
+			  m_spec.m_switch = true;
+			  break;
+			}
 
 		      /* Undefined directive. */
 		      CError.parse_error(CError.E_DIRECT,
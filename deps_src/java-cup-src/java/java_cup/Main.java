@@ -34,6 +34,8 @@ import java_cup.runtime.*;
  *   <dd> number of conflicts expected/allowed [default 0]
  *   <dt> -compact_red   
  *   <dd> compact tables by defaulting to most frequent reduce
+ *   <dt> -nounitreduce
+ *   <dd> skip reductions by unit productions that just pass on a value
  *   <dt> -nowarn        
  *   <dd> don't warn about useless productions, etc.
  *   <dt> -nosummary     
@@ -56,6 +58,8 @@ import java_cup.runtime.*;
  *   <dd> don't generate the positions code
  *   <dt> -locations
  *   <dd> generate handles xleft/xright for symbol positions in actions
+ *   <dt> -splitactions
+ *   <dd> put the action of each production in a method of its own
  *   <dt> -noscanner
  *   <dd> don't refer to java_cup.runtime.Scanner in the parser
  *        (for compatibility with old runtimes)
@@ -94,6 +98,9 @@ public class Main {
   /** User option -- do we compact tables by making most common reduce the 
       default action */
   protected static boolean opt_compact_red  = false;
+  /** User option -- do we skip reductions by unit productions whose action
+      is just RESULT = label */
+  protected static boolean opt_no_unit_red  = false;
   /** User option -- should we include non terminal symbol numbers in the 
       symbol constant class. */
   protected static boolean include_non_terms = false;
@@ -101,6 +108,8 @@ public class Main {
   protected static boolean no_summary = false;
   /** User option -- number of conflicts to expect */
   protected static int expect_conflicts = 0;
+  /** Number of table entries redirected past unit reductions */
+  protected static int unit_red_removed = 0;
 
   /* frankf added this 6/18/96 */
   /** User option -- should generator generate code for left/right values? */
@@ -108,6 +117,8 @@ public class Main {
   protected static boolean locations = false;
   protected static boolean xmlactions = false;
   protected static boolean genericlabels = false;
+  /** User option -- should each action get a method of its own? */
+  protected static boolean split_actions = false;
   
   /** User option -- should symbols be put in a class or an interface? [CSA]*/
   protected static boolean sym_interface = false;
@@ -181,6 +192,7 @@ public class Main {
       emit.set_locations(locations);
       emit.set_xmlactions(xmlactions);
       emit.set_genericlabels(genericlabels);
+      emit.set_split_actions(split_actions);
       /* open output set_xmlactionsfiles */
       if (print_progress) System.err.println("Opening files...");
       /* use a buffered version of standard input */
@@ -269,12 +281,14 @@ version.title_str + "\n" +
 "    -nonterms      put non terminals in symbol constant class\n" + 
 "    -expect #      number of conflicts expected/allowed [default 0]\n" + 
 "    -compact_red   compact tables by defaulting to most frequent reduce\n" +
+"    -nounitreduce  skip reductions by unit productions that pass on a value\n" +
 "    -nowarn        don't warn about useless productions, etc.\n" +
 "    -nosummary     don't print the usual summary of parse states, etc.\n" +
 "    -nopositions   don't propagate the left and right token position values\n" +
 "    -locations     generate handles xleft/xright for symbol positions in actions\n" +
 "    -xmlactions    make the generated parser yield its parse tree as XML\n" +
 "    -genericlabels automatically generate labels to all symbols in XML mode\n" +
+"    -splitactions  put the action of each production in a method of its own\n" +
 "    -noscanner     don't refer to java_cup.runtime.Scanner\n" +
 "    -progress      print messages to indicate progress of the system\n" +
 "    -time          print time usage summary\n" +
@@ -360,6 +374,7 @@ version.title_str + "\n" +
 	      }
 	    }
 	  else if (argv[i].equals("-compact_red"))  opt_compact_red = true;
+	  else if (argv[i].equals("-nounitreduce")) opt_no_unit_red = true;
 	  else if (argv[i].equals("-nosummary"))    no_summary = true;
 	  else if (argv[i].equals("-nowarn"))       emit.nowarn = true;
 	  else if (argv[i].equals("-dump_states"))  opt_dump_states = true;
@@ -375,6 +390,7 @@ version.title_str + "\n" +
 	  else if (argv[i].equals("-locations"))    locations = true;
 	  else if (argv[i].equals("-xmlactions"))   xmlactions = true;
 	  else if (argv[i].equals("-genericlabels"))   genericlabels = true;
+	  else if (argv[i].equals("-splitactions")) split_actions = true;
 	  /* CSA 12/21/97 */
 	  else if (argv[i].equals("-interface"))    sym_interface = true;
 	  /* CSA 23-Jul-1999 */
@@ -617,6 +633,16 @@ version.title_str + "\n" +
 	System.err.println("  Checking for non-reduced productions...");
       action_table.check_reductions();
 
+      /* bypass the reductions by unit productions that only copy a value;
+	 with XML actions, every reduction leaves a node in the tree */
+      if (opt_no_unit_red && !xmlactions)
+	{
+	  if (opt_do_debug || print_progress) 
+	    System.err.println("  Removing unit reductions...");
+	  unit_red_removed = 
+	    action_table.remove_unit_reductions(reduce_table, opt_compact_red);
+	}
+
       reduce_check_end = System.currentTimeMillis();
 
       /* if we have more conflicts than we expected issue a message and die */
@@ -695,6 +721,12 @@ version.title_str + "\n" +
       System.err.println("  " + emit.not_reduced + " production" + 
 			 plural(emit.not_reduced) + " never reduced.");
 
+      /* unit reductions */
+      if (opt_no_unit_red)
+	System.err.println("  " + unit_red_removed + " table entr" +
+			   (unit_red_removed == 1 ? "y" : "ies") +
+			   " redirected past unit reductions.");
+
       /* conflicts */
       System.err.println("  " + emit.num_conflicts + " conflict" +
 			 plural(emit.num_conflicts) + " detected" +
@@ -212,6 +212,7 @@ public class emit {
   protected static boolean _locations;
   protected static boolean _xmlactions;
   protected static boolean _genericlabels;
+  protected static boolean _split_actions;
 
   /** whether or not to emit code for left and right values */
   public static boolean lr_values() {return _lr_values;}
@@ -219,6 +220,9 @@ public class emit {
   protected static void set_lr_values(boolean b) { _lr_values = b;}
   protected static void set_locations(boolean b) { _locations = b; }
   protected static void set_genericlabels(boolean b) { _genericlabels = b; }
+  /** whether or not to emit the action of each production in a method of its own */
+  public static boolean split_actions() { return _split_actions; }
+  protected static void set_split_actions(boolean b) { _split_actions = b; }
   protected static void set_xmlactions(boolean b) { _xmlactions = b; 
  	if (!b) return;
  	_locations=true; 
@@ -227,6 +231,7 @@ public class emit {
   //Hm Added clear  to clear all static fields
   public static void clear () {
 	  _genericlabels = false;
+	  _split_actions = false;
 	  _xmlactions = false;
       _locations = false; 
       _lr_values = true;
@@ -256,6 +261,29 @@ public class emit {
     return prefix + parser_class_name + "$" + str;
   }
 
+  /** Build the code that reads, in an action, the Symbol offset places
+   *  below the top of the parse stack.  Actions read the Symbols directly
+   *  from the parser's array of them, which the action method keeps in a 
+   *  local variable (see emit_symbol_stack()). 
+   * @param offset how far below the top the Symbol is.
+   */
+  protected static String stack_symbol(int offset) {
+    return pre("symbols") + "[" + pre("top") + 
+      ((offset==0) ? "" : "-" + offset) + "]";
+  }
+
+  /** Emit the local variable of an action method that holds the Symbols of
+   *  the parse stack.  The java.util.Stack the method is passed is only a 
+   *  view of the same Symbols, for user code that uses it. 
+   * @param out stream to produce output on.
+   */
+  protected static void emit_symbol_stack(PrintWriter out) {
+    out.println("      /* the Symbols of the parse stack, for the actions to read */");
+    out.println("      java_cup.runtime.Symbol[] " + pre("symbols") + " = " +
+		pre("parser") + ".symbol_stack();");
+    out.println();
+  }
+
    /**
     * TUM changes; proposed by Henning Niss 20050628 
     * Build a string with the specified type arguments,
@@ -364,73 +392,16 @@ public class emit {
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
-  static final int UPPERLIMIT = 300;
-  /** Emit code for the non-public class holding the actual action code. 
+  /** Emit the code that carries out the action of a production and returns
+   *  the Symbol of its left hand side.
    * @param out        stream to produce output on.
+   * @param prod       the production reduced by.
    * @param start_prod the start production of the grammar.
    */
-  protected static void emit_action_code(PrintWriter out, production start_prod)
+  protected static void emit_action_body(PrintWriter out, production prod,
+    production start_prod)
     throws internal_error
     {
-      production prod;
-
-      long start_time = System.currentTimeMillis();
-
-      /* class header */
-      out.println();
-      out.println(
-       "/** Cup generated class to encapsulate user supplied action code.*/"
-      );  
-      out.println("@SuppressWarnings({\"rawtypes\", \"unchecked\", \"unused\"})");
-      /* TUM changes; proposed by Henning Niss 20050628: added type arguement */
-      out.println("class " +  pre("actions") + typeArgument() + " {");
-      /* user supplied code */
-      if (action_code != null)
-	{
-	  out.println();
-          out.println(action_code);
-	}
-
-      /* field for parser object */
-      /* TUM changes; proposed by Henning Niss 20050628: added typeArgument */
-      out.println("  private final "+parser_class_name + typeArgument() + " parser;");
-
-      /* constructor */
-      out.println();
-      out.println("  /** Constructor */");
-      /* TUM changes; proposed by Henning Niss 20050628: added typeArgument */
-      out.println("  " + pre("actions") + "("+parser_class_name+typeArgument()+" parser) {");
-      out.println("    this.parser = parser;");
-      out.println("  }");
-
-      out.println();
-      for (int instancecounter = 0; instancecounter <= production.number()/UPPERLIMIT; instancecounter++) {
-      out.println("  /** Method "+instancecounter+" with the actual generated action code for actions "+(instancecounter*UPPERLIMIT)+" to "+((instancecounter+1)*UPPERLIMIT) +". */");
-      out.println("  public final java_cup.runtime.Symbol " + 
-		     pre("do_action_part")+ String.format("%08d",new Integer(instancecounter)) +"(");
-      out.println("    int                        " + pre("act_num,"));
-      out.println("    java_cup.runtime.lr_parser " + pre("parser,"));
-      out.println("    java.util.Stack            " + pre("stack,"));
-      out.println("    int                        " + pre("top)"));
-      out.println("    throws java.lang.Exception");
-      out.println("    {");
-      out.println("      /* Symbol object for return from actions */");
-      out.println("      java_cup.runtime.Symbol " + pre("result") + ";");
-      out.println();
-      out.println("      /* select the action based on the action number */");
-      out.println("      switch (" + pre("act_num") + ")");
-      out.println("        {");
-      // START Switch
-      /* emit action code for each production as a separate case */
-      int proditeration = instancecounter*UPPERLIMIT;
-      prod=production.find(proditeration);
-      for ( ;proditeration<Math.min((instancecounter+1)*UPPERLIMIT,production.number());prod=(production)production.find(++proditeration) )
-	{
-	  /* case label */
-          out.println("          /*. . . . . . . . . . . . . . . . . . . .*/");
-          out.println("          case " + prod.index() + ": // " + 
-					  prod.to_simple_string());
-
 	  /* give them their own block to work in */
 	  out.println("            {");
 
@@ -443,10 +414,7 @@ public class emit {
               int lastResult = ((action_production)prod).getIndexOfIntermediateResult();
               if (lastResult!=-1) {
                   result =  "(" + prod.lhs().the_symbol().stack_type() + ") " +
-                      "((java_cup.runtime.Symbol) " + emit.pre("stack") + 
-                      // TUM 20050917
-                      ((lastResult==1)?".peek()":(".elementAt(" + emit.pre("top") + "-" + (lastResult-1) + ")"))+
-                      ").value";
+                      stack_symbol(lastResult-1) + ".value";
               }
           }
 
@@ -485,10 +453,7 @@ public class emit {
 	    // store the intermediate result into RESULT
             out.println("                " + "RESULT = " +
 	      "(" + prod.lhs().the_symbol().stack_type() + ") " +
-	      "((java_cup.runtime.Symbol) " + emit.pre("stack") + 
-			// TUM 20050917
-			((index==0)?".peek()":(".elementAt(" + emit.pre("top") + "-" + index + ")"))+
-			").value;");
+	      stack_symbol(index) + ".value;");
             break;
 	  }
 
@@ -508,21 +473,12 @@ public class emit {
 	    String leftstring, rightstring;
 	    // TUM 20050917
             //int roffset = 0;
-	    rightstring = "((java_cup.runtime.Symbol)" + emit.pre("stack") + 
-		// TUM 20050917
-		//".elementAt(" + emit.pre("top") + "-" + roffset + "))"+
-		".peek()"+
-                // TUM 20060327 removed .right
-		")"; 	  
+	    rightstring = stack_symbol(0);
 	    if (prod.rhs_length() == 0) 
 	      leftstring = rightstring;
 	    else {
 	      loffset = prod.rhs_length() - 1;
-	      leftstring = "((java_cup.runtime.Symbol)" + emit.pre("stack") + 
-		  // TUM 20050917
-		  ((loffset==0)?(".peek()"):(".elementAt(" + emit.pre("top") + "-" + loffset + ")")) +
-                  // TUM 20060327 removed .left
-		  ")";
+	      leftstring = stack_symbol(loffset);
 	    }
 	    out.println("              " + pre("result") + " = parser.getSymbolFactory().newSymbol(" + 
                         "\""+ 	prod.lhs().the_symbol().name() +"\","+ 
@@ -548,6 +504,230 @@ public class emit {
 	  /* code to return lhs symbol */
 	  out.println("          return " + pre("result") + ";");
 	  out.println();
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Emit the code that builds the XMLElement of a production and returns
+   *  the Symbol of its left hand side.
+   * @param out        stream to produce output on.
+   * @param prod       the production reduced by.
+   * @param start_prod the start production of the grammar.
+   */
+  protected static void emit_xmlaction_body(PrintWriter out, production prod,
+    production start_prod)
+    throws internal_error
+    {
+	  /* give them their own block to work in */
+	  out.println("            {");
+
+
+      out.println("                XMLElement RESULT;");
+      
+
+          // Generate the XML Output
+          String nested="";
+          for (int rhsi=0;rhsi<prod.rhs_length();rhsi++){
+        	  if (!(prod.rhs(rhsi) instanceof symbol_part)) continue;
+        	  String label = prod.rhs(rhsi).label();
+        	  symbol_part sym  = (symbol_part)prod.rhs(rhsi);
+        	  if (label==null) {
+        		  if (!_genericlabels) continue;
+        		  label = sym.the_symbol().name()+rhsi;
+        	  }
+        	  if (sym.the_symbol().is_non_term())
+        		  nested+=",(XMLElement)"+label;
+        	  else 
+        		  nested+=",new XMLElement.Terminal("+label+"xleft,\""+label+"\","+label+","+label+"xright)";
+          }
+          
+          if (prod.action() != null && prod.action().code_string() != null &&
+                  !prod.action().equals(""))
+                out.println(prod.action().code_string());
+          
+          // determine the variant:
+          int variant=0;
+          for (int i=0;i<prod.index();i++)
+        	  if (production.find(i).lhs().equals(prod.lhs())) variant++;
+          
+          String lhsname =prod.lhs().the_symbol().name().replace('$','_'); 
+          out.println("                RESULT = new XMLElement.NonTerminal(\""+
+        		  lhsname+"\","+
+        		  variant+nested+");"); 
+          
+          
+         /* Create the code that assigns the left and right values of
+            the new Symbol that the production is reducing to */
+	  if (emit.lr_values()) {	    
+	    int loffset;
+	    String leftstring, rightstring;
+	    rightstring = stack_symbol(0);
+	    if (prod.rhs_length() == 0) 
+	      leftstring = rightstring;
+	    else {
+	      loffset = prod.rhs_length() - 1;
+	      leftstring = stack_symbol(loffset);
+	    }
+	    out.println("              " + pre("result") + " = parser.getSymbolFactory().newSymbol(" + 
+                        "\""+ 	prod.lhs().the_symbol().name() +"\","+ 
+			prod.lhs().the_symbol().index() + ", " + leftstring + ", " + rightstring + ", RESULT);");
+	  } else {
+	    out.println("              " + pre("result") + " = parser.getSymbolFactory().newSymbol(" + 
+		"\""+ 	prod.lhs().the_symbol().name() +  "\"," + prod.lhs().the_symbol().index() + ", RESULT);");
+	  }
+	  
+	  /* end of their block */
+	  out.println("            }");
+
+	  /* if this was the start production, do action for accept */
+	  if (prod == start_prod)
+	    {
+	      out.println("          /* ACCEPT */");
+	      out.println("          " + pre("parser") + ".done_parsing();");
+	    }
+
+	  /* code to return lhs symbol */
+	  out.println("          return " + pre("result") + ";");
+	  out.println();
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Build the name of the method that holds the action of a production,
+   *  when each has its own (see split_actions()). 
+   * @param prod the production.
+   */
+  protected static String action_method(production prod) {
+    return pre("do_action_prod") + prod.index();
+  }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Emit a call of the method holding the action of a production, in the
+   *  place of the action itself, so that the switch of a do_action_part
+   *  method stays small enough for the JIT to compile. 
+   * @param out  stream to produce output on.
+   * @param prod the production reduced by.
+   */
+  protected static void emit_action_call(PrintWriter out, production prod)
+    {
+      out.println("              return " + action_method(prod) + "(" + 
+		  pre("parser") + ", " + pre("stack") + ", " + pre("top") + ");");
+      out.println();
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Emit one method per production holding its action, for the calls 
+   *  emitted by emit_action_call().  Each method is small, so the JIT 
+   *  compiles it, and can inline it into the switch that calls it. 
+   * @param out        stream to produce output on.
+   * @param start_prod the start production of the grammar.
+   * @param xml        whether the actions build XMLElements.
+   */
+  protected static void emit_action_methods(PrintWriter out, 
+    production start_prod, boolean xml)
+    throws internal_error
+    {
+      for (int i = 0; i < production.number(); i++)
+	{
+	  production prod = production.find(i);
+	  out.println();
+	  out.println("  /** Action of production " + prod.index() + ": " + 
+		      prod.to_simple_string().replace("*/", "* /") + " */");
+	  out.println("  final java_cup.runtime.Symbol " + action_method(prod) + "(");
+	  out.println("    java_cup.runtime.lr_parser " + pre("parser,"));
+	  out.println("    java.util.Stack            " + pre("stack,"));
+	  out.println("    int                        " + pre("top)"));
+	  out.println("    throws java.lang.Exception");
+	  out.println("    {");
+	  out.println("      /* Symbol object for return from actions */");
+	  out.println("      java_cup.runtime.Symbol " + pre("result") + ";");
+	  out.println();
+	  emit_symbol_stack(out);
+	  if (xml)
+	    emit_xmlaction_body(out, prod, start_prod);
+	  else
+	    emit_action_body(out, prod, start_prod);
+	  out.println("    }");
+	}
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  static final int UPPERLIMIT = 300;
+  /** Emit code for the non-public class holding the actual action code. 
+   * @param out        stream to produce output on.
+   * @param start_prod the start production of the grammar.
+   */
+  protected static void emit_action_code(PrintWriter out, production start_prod)
+    throws internal_error
+    {
+      production prod;
+
+      long start_time = System.currentTimeMillis();
+
+      /* class header */
+      out.println();
+      out.println(
+       "/** Cup generated class to encapsulate user supplied action code.*/"
+      );  
+      out.println("@SuppressWarnings({\"rawtypes\", \"unchecked\", \"unused\"})");
+      /* TUM changes; proposed by Henning Niss 20050628: added type arguement */
+      out.println("class " +  pre("actions") + typeArgument() + " {");
+      /* user supplied code */
+      if (action_code != null)
+	{
+	  out.println();
+          out.println(action_code);
+	}
+
+      /* field for parser object */
+      /* TUM changes; proposed by Henning Niss 20050628: added typeArgument */
+      out.println("  private final "+parser_class_name + typeArgument() + " parser;");
+
+      /* constructor */
+      out.println();
+      out.println("  /** Constructor */");
+      /* TUM changes; proposed by Henning Niss 20050628: added typeArgument */
+      out.println("  " + pre("actions") + "("+parser_class_name+typeArgument()+" parser) {");
+      out.println("    this.parser = parser;");
+      out.println("  }");
+
+      out.println();
+      for (int instancecounter = 0; instancecounter <= production.number()/UPPERLIMIT; instancecounter++) {
+      out.println("  /** Method "+instancecounter+" with the actual generated action code for actions "+(instancecounter*UPPERLIMIT)+" to "+((instancecounter+1)*UPPERLIMIT) +". */");
+      out.println("  public final java_cup.runtime.Symbol " + 
+		     pre("do_action_part")+ String.format("%08d",new Integer(instancecounter)) +"(");
+      out.println("    int                        " + pre("act_num,"));
+      out.println("    java_cup.runtime.lr_parser " + pre("parser,"));
+      out.println("    java.util.Stack            " + pre("stack,"));
+      out.println("    int                        " + pre("top)"));
+      out.println("    throws java.lang.Exception");
+      out.println("    {");
+      out.println("      /* Symbol object for return from actions */");
+      out.println("      java_cup.runtime.Symbol " + pre("result") + ";");
+      out.println();
+      if (!split_actions())
+	emit_symbol_stack(out);
+      out.println("      /* select the action based on the action number */");
+      out.println("      switch (" + pre("act_num") + ")");
+      out.println("        {");
+      // START Switch
+      /* emit action code for each production as a separate case */
+      int proditeration = instancecounter*UPPERLIMIT;
+      prod=production.find(proditeration);
+      for ( ;proditeration<Math.min((instancecounter+1)*UPPERLIMIT,production.number());prod=(production)production.find(++proditeration) )
+	{
+	  /* case label */
+          out.println("          /*. . . . . . . . . . . . . . . . . . . .*/");
+          out.println("          case " + prod.index() + ": // " + 
+					  prod.to_simple_string());
+
+	  if (split_actions())
+	    emit_action_call(out, prod);
+	  else
+	    emit_action_body(out, prod, start_prod);
 	}
 
       // END Switch
@@ -561,6 +741,9 @@ public class emit {
       out.println("    } /* end of method */");
       }
 
+      if (split_actions())
+	emit_action_methods(out, start_prod, false);
+
       /* action method head */
       out.println();
       out.println("  /** Method splitting the generated action code into several parts. */");
@@ -1102,6 +1285,8 @@ public class emit {
       out.println("      /* Symbol object for return from actions */");
       out.println("      java_cup.runtime.Symbol " + pre("result") + ";");
       out.println();
+      if (!split_actions())
+	emit_symbol_stack(out);
       out.println("      /* select the action based on the action number */");
       out.println("      switch (" + pre("act_num") + ")");
       out.println("        {");
@@ -1116,78 +1301,10 @@ public class emit {
           out.println("          case " + prod.index() + ": // " + 
 					  prod.to_simple_string());
 
-	  /* give them their own block to work in */
-	  out.println("            {");
-
-
-      out.println("                XMLElement RESULT;");
-      
-
-          // Generate the XML Output
-          String nested="";
-          for (int rhsi=0;rhsi<prod.rhs_length();rhsi++){
-        	  if (!(prod.rhs(rhsi) instanceof symbol_part)) continue;
-        	  String label = prod.rhs(rhsi).label();
-        	  symbol_part sym  = (symbol_part)prod.rhs(rhsi);
-        	  if (label==null) {
-        		  if (!_genericlabels) continue;
-        		  label = sym.the_symbol().name()+rhsi;
-        	  }
-        	  if (sym.the_symbol().is_non_term())
-        		  nested+=",(XMLElement)"+label;
-        	  else 
-        		  nested+=",new XMLElement.Terminal("+label+"xleft,\""+label+"\","+label+","+label+"xright)";
-          }
-          
-          if (prod.action() != null && prod.action().code_string() != null &&
-                  !prod.action().equals(""))
-                out.println(prod.action().code_string());
-          
-          // determine the variant:
-          int variant=0;
-          for (int i=0;i<proditeration;i++)
-        	  if (production.find(i).lhs().equals(prod.lhs())) variant++;
-          
-          String lhsname =prod.lhs().the_symbol().name().replace('$','_'); 
-          out.println("                RESULT = new XMLElement.NonTerminal(\""+
-        		  lhsname+"\","+
-        		  variant+nested+");"); 
-          
-          
-         /* Create the code that assigns the left and right values of
-            the new Symbol that the production is reducing to */
-	  if (emit.lr_values()) {	    
-	    int loffset;
-	    String leftstring, rightstring;
-	    rightstring = "((java_cup.runtime.Symbol)" + emit.pre("stack") + ".peek()"+")"; 	  
-	    if (prod.rhs_length() == 0) 
-	      leftstring = rightstring;
-	    else {
-	      loffset = prod.rhs_length() - 1;
-	      leftstring = "((java_cup.runtime.Symbol)" + emit.pre("stack") + 
-		  ((loffset==0)?(".peek()"):(".elementAt(" + emit.pre("top") + "-" + loffset + ")")) +")";
-	    }
-	    out.println("              " + pre("result") + " = parser.getSymbolFactory().newSymbol(" + 
-                        "\""+ 	prod.lhs().the_symbol().name() +"\","+ 
-			prod.lhs().the_symbol().index() + ", " + leftstring + ", " + rightstring + ", RESULT);");
-	  } else {
-	    out.println("              " + pre("result") + " = parser.getSymbolFactory().newSymbol(" + 
-		"\""+ 	prod.lhs().the_symbol().name() +  "\"," + prod.lhs().the_symbol().index() + ", RESULT);");
-	  }
-	  
-	  /* end of their block */
-	  out.println("            }");
-
-	  /* if this was the start production, do action for accept */
-	  if (prod == start_prod)
-	    {
-	      out.println("          /* ACCEPT */");
-	      out.println("          " + pre("parser") + ".done_parsing();");
-	    }
-
-	  /* code to return lhs symbol */
-	  out.println("          return " + pre("result") + ";");
-	  out.println();
+	  if (split_actions())
+	    emit_action_call(out, prod);
+	  else
+	    emit_xmlaction_body(out, prod, start_prod);
 	}
 
       // END Switch
@@ -1201,6 +1318,9 @@ public class emit {
       out.println("    } /* end of method */");
       }
 
+      if (split_actions())
+	emit_action_methods(out, start_prod, true);
+
       /* action method head */
       out.println();
       out.println("  /** Method splitting the generated action code into several parts. */");
@@ -3,6 +3,7 @@ package java_cup;
 
 import java.util.Hashtable;
 import java.util.Enumeration;
+import java.util.regex.Pattern;
 
 /** This class represents a production in the grammar.  It contains
  *  a LHS non terminal, and an array of RHS symbols.  As various 
@@ -147,6 +148,14 @@ public class production {
       /* stash the action */
       _action = new action_part(action_str);
 
+      /* note whether the action does nothing but pass on the value of the
+	 single symbol on the right hand side */
+      _copies_rhs = _rhs_length == 1 && !_rhs[0].is_action()
+	&& _rhs[0].label() != null && tail_action != null
+	&& tail_action.code_string() != null
+	&& tail_action.code_string().trim().matches(
+	     "RESULT\\s*=\\s*" + Pattern.quote(_rhs[0].label()) + "\\s*;");
+
       /* rewrite production to remove any embedded actions */
       remove_embedded_actions();
 
@@ -308,6 +317,16 @@ public class production {
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
+  /** Is this a unit production whose action is just RESULT = label, with
+   *  label the label of its single right hand side symbol? */
+  protected boolean _copies_rhs = false;
+
+  /** Is this a unit production whose action is just RESULT = label, with
+   *  label the label of its single right hand side symbol? */
+  public boolean copies_rhs() {return _copies_rhs;}
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
   /** Index number of the production. */
   protected int _index;
 
@@ -397,35 +416,20 @@ public class production {
       /* Put in the left/right value labels */
       if (emit.lr_values()){
 	if (!emit.locations())
-        ret = "\t\tint " + labelname + "left = ((java_cup.runtime.Symbol)" + 
-	  emit.pre("stack") + 
- 	    // TUM 20050917
-	    ((offset==0)?".peek()":(".elementAt(" + emit.pre("top") + "-" + offset + ")"))+
-	    ").left;\n" +
-	  "\t\tint " + labelname + "right = ((java_cup.runtime.Symbol)" + 
-	  emit.pre("stack") +
- 	    // TUM 20050917
-	    ((offset==0)?".peek()":(".elementAt(" + emit.pre("top") + "-" + offset + ")"))+
-	    ").right;\n";
+        ret = "\t\tint " + labelname + "left = " + 
+	  emit.stack_symbol(offset) + ".left;\n" +
+	  "\t\tint " + labelname + "right = " + 
+	  emit.stack_symbol(offset) + ".right;\n";
 	else
         ret = "\t\tLocation " + labelname + "xleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)" + 
-	  emit.pre("stack") + 
- 	    // TUM 20050917
-	    ((offset==0)?".peek()":(".elementAt(" + emit.pre("top") + "-" + offset + ")"))+
-	    ").xleft;\n" +
+	  emit.stack_symbol(offset) + ").xleft;\n" +
 	  "\t\tLocation " + labelname + "xright = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)" + 
-	  emit.pre("stack") +
- 	    // TUM 20050917
-	    ((offset==0)?".peek()":(".elementAt(" + emit.pre("top") + "-" + offset + ")"))+
-	    ").xright;\n";}
+	  emit.stack_symbol(offset) + ").xright;\n";}
       else ret = "";
 
       /* otherwise, just declare label. */
 	return ret + "\t\t" + stack_type + " " + labelname + " = (" + stack_type + 
-	  ")((" + "java_cup.runtime.Symbol) " + emit.pre("stack") + 
-	    // TUM 20050917
-	    ((offset==0)?".peek()":(".elementAt(" + emit.pre("top") + "-" + offset + ")"))+
-	    ").value;\n";
+	  ")" + emit.stack_symbol(offset) + ".value;\n";
 
     }
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
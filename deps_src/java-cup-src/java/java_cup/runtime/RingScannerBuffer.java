@@ -0,0 +1,45 @@
+package java_cup.runtime;
+
+/**
+ * A ScannerBuffer that keeps only the last tokens read, up to a given
+ * number, in a ring, so that memory does not grow with the input.  The
+ * tokens keep the indexes they would have in a ScannerBuffer; those that
+ * were dropped can no longer be read.
+ */
+public class RingScannerBuffer extends ScannerBuffer {
+	/**
+	 * Wraps around a custom scanner and stores the last tokens it produced
+	 * @param inner the scanner to buffer
+	 * @param capacity the number of tokens kept
+	 */
+	public RingScannerBuffer(Scanner inner, int capacity) {
+		super(inner);
+		if (capacity < 1)
+			throw new IllegalArgumentException("capacity "+capacity);
+		buffer = new Symbol[capacity];
+	}
+	/**
+	 * The number of tokens kept
+	 */
+	public int capacity() {
+		return buffer.length;
+	}
+	/**
+	 * The index of the oldest token kept
+	 */
+	@Override
+	public int first() {
+		return Math.max(0, count - buffer.length);
+	}
+	@Override
+	public Symbol get(int index) {
+		if (index < first() || index >= count)
+			throw new IndexOutOfBoundsException("token "+index+" of "+first()+".."+(count-1));
+		return buffer[index % buffer.length];
+	}
+	@Override
+	protected void add(Symbol s) {
+		buffer[count % buffer.length] = s;
+		count++;
+	}
+}
@@ -38,7 +38,8 @@ public abstract class XMLElement {
 
 		if (buffer!=null){
 			writer.writeStartElement("tokensequence");
-			for (Symbol s:buffer.getBuffered()){
+			for (int i=buffer.first(); i<buffer.size(); i++){
+				Symbol s = buffer.get(i);
 				if (s instanceof ComplexSymbol){
 					ComplexSymbol cs = (ComplexSymbol)s;
 					if (cs.value!=null){
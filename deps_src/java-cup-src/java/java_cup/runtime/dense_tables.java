@@ -0,0 +1,112 @@
+package java_cup.runtime;
+
+/** This class holds the action and reduce-goto tables of a grammar expanded
+ *  to one entry per state and Symbol (see lr_parser.expand_tables()).  The
+ *  expansion is done once per set of tables and shared by every parser
+ *  that uses them, so the arrays must never be written to.
+ *
+ * @see     java_cup.runtime.lr_parser
+ */
+
+class dense_tables {
+  /*-----------------------------------------------------------*/
+  /*--- Constructor(s) ----------------------------------------*/
+  /*-----------------------------------------------------------*/
+
+  /** Constructor for the expansion of the given tables.  Only the widths
+   *  are worked out here; the tables themselves are built by expand().
+   */
+  dense_tables(short[][] production_tab, short[][] action_tab,
+	       short[][] reduce_tab, int EOF_sym, int error_sym)
+    {
+      this.production_tab = production_tab;
+      this.reduce_tab     = reduce_tab;
+
+      /* the widths are one more than the largest Symbol index used */
+      int terms = Math.max(EOF_sym, error_sym) + 1;
+      for (int state = 0; state < action_tab.length; state++)
+	for (int i = 0; i < action_tab[state].length - 2; i += 2)
+	  terms = Math.max(terms, action_tab[state][i] + 1);
+      int nonterms = 1;
+      for (int p = 0; p < production_tab.length; p++)
+	nonterms = Math.max(nonterms, production_tab[p][0] + 1);
+
+      action_width = terms;
+      reduce_width = nonterms;
+      size         = (long)action_tab.length * terms;
+    }
+
+  /*-----------------------------------------------------------*/
+  /*--- (Access to) Instance Variables ------------------------*/
+  /*-----------------------------------------------------------*/
+
+  /** The production and reduce-goto tables expanded along with the action
+   *  table.  The action table itself is not kept, as it is the key under
+   *  which lr_parser keeps this object.
+   */
+  final short[][] production_tab, reduce_tab;
+
+  /** The number of entries per state of the dense action table. */
+  final int action_width;
+
+  /** The number of entries per state of the dense reduce-goto table. */
+  final int reduce_width;
+
+  /** The number of entries of the dense action table. */
+  final long size;
+
+  /** The dense action table, or null until expand() is called. */
+  short[] actions;
+
+  /** The dense reduce-goto table, or null until expand() is called. */
+  short[] gotos;
+
+  /*-----------------------------------------------------------*/
+  /*--- General Methods ---------------------------------------*/
+  /*-----------------------------------------------------------*/
+
+  /** Build the dense tables from action_tab, the action table the widths
+   *  were worked out from, unless this has been done already.
+   */
+  synchronized void expand(short[][] action_tab)
+    {
+      if (actions != null)
+	return;
+
+      short[] actions = new short[action_tab.length * action_width];
+      for (int state = 0; state < action_tab.length; state++)
+	{
+	  /* the default at the end of the row, then the listed entries */
+	  short[] row = action_tab[state];
+	  int base = state * action_width;
+	  java.util.Arrays.fill(actions, base, base + action_width,
+				row[row.length-1]);
+	  for (int i = 0; i < row.length - 2; i += 2)
+	    actions[base + row[i]] = row[i+1];
+	}
+
+      short[] gotos = new short[reduce_tab.length * reduce_width];
+      java.util.Arrays.fill(gotos, (short)-1);
+      for (int state = 0; state < reduce_tab.length; state++)
+	{
+	  short[] row = reduce_tab[state];
+	  if (row == null)
+	    continue;
+	  int base = state * reduce_width;
+	  /* entries before a default entry hide the ones after it */
+	  for (int i = row.length - 2; i >= 0; i -= 2)
+	    {
+	      if (row[i] == -1)
+		java.util.Arrays.fill(gotos, base, base + reduce_width, row[i+1]);
+	      else
+		gotos[base + row[i]] = row[i+1];
+	    }
+	}
+
+      this.gotos   = gotos;
+      this.actions = actions;
+    }
+
+  /*-----------------------------------------------------------*/
+
+}
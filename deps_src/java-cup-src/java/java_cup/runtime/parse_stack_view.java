@@ -0,0 +1,144 @@
+package java_cup.runtime;
+
+import java.util.EmptyStackException;
+import java.util.Stack;
+
+/** This class presents the parse stack of an lr_parser, which is kept in
+ *  a pair of parallel arrays (see lr_parser.state_stack and
+ *  lr_parser.symbol_stack), as the java.util.Stack of Symbols that parsers
+ *  used to keep.  It is what lr_parser.stack refers to, and what is passed
+ *  as the stack to do_action(), so that action code and subclasses written
+ *  against the old Stack go on working.  Element 0 is the bottom of the
+ *  stack, and element tos the top.<p>
+ *
+ *  Only the Stack operations push(), pop(), peek() and empty(), the indexed
+ *  reads elementAt(), get(), firstElement() and lastElement(), and size(),
+ *  isEmpty(), removeAllElements() and clear() are supported; other Vector 
+ *  methods see an empty vector.
+ *
+ * @see     java_cup.runtime.lr_parser
+ */
+
+public class parse_stack_view extends Stack {
+  /*-----------------------------------------------------------*/
+  /*--- Constructor(s) ----------------------------------------*/
+  /*-----------------------------------------------------------*/
+
+  /** Constructor for the view of the parse stack of parser. */
+  public parse_stack_view(lr_parser parser)
+    {
+      super();
+      this.parser = parser;
+    }
+
+  /*-----------------------------------------------------------*/
+  /*--- (Access to) Instance Variables ------------------------*/
+  /*-----------------------------------------------------------*/
+
+  /** The parser whose stack this is. */
+  protected final lr_parser parser;
+
+  /*-----------------------------------------------------------*/
+  /*--- General Methods ---------------------------------------*/
+  /*-----------------------------------------------------------*/
+
+  /** Push a Symbol, in the state recorded in it, onto the stack. */
+  public Object push(Object item)
+    {
+      Symbol sym = (Symbol)item;
+      parser.push_symbol(sym, sym.parse_state);
+      return item;
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Pop the Symbol on top of the stack. */
+  public Object pop()
+    {
+      Object top = peek();
+      parser.tos--;
+      return top;
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Return the Symbol on top of the stack (without popping it). */
+  public Object peek()
+    {
+      if (parser.tos < 0)
+	throw new EmptyStackException();
+      return parser.symbol_stack[parser.tos];
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Indicate whether the stack is empty. */
+  public boolean empty()
+    {
+      return parser.tos < 0;
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  public boolean isEmpty()
+    {
+      return parser.tos < 0;
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** The number of Symbols on the stack. */
+  public int size()
+    {
+      return parser.tos + 1;
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Return the Symbol at index (counting from the bottom). */
+  public Object elementAt(int index)
+    {
+      if (index < 0 || index > parser.tos)
+	throw new ArrayIndexOutOfBoundsException(index);
+      return parser.symbol_stack[index];
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  public Object get(int index)
+    {
+      return elementAt(index);
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  public Object firstElement()
+    {
+      return elementAt(0);
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  public Object lastElement()
+    {
+      return peek();
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Pop everything off the stack. */
+  public void removeAllElements()
+    {
+      parser.tos = -1;
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  public void clear()
+    {
+      parser.tos = -1;
+    }
+
+  /*-----------------------------------------------------------*/
+
+}
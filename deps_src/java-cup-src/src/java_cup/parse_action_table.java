@@ -100,6 +100,135 @@ public class parse_action_table {
 	}
     }
 
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Remove reductions by unit productions that only pass on the value of
+   *  their right hand side symbol (A ::= X:x {: RESULT = x; :}).  Where
+   *  state s goes to state t on X, and all t does is reduce by such a
+   *  production, the shift or goto entry of s is pointed straight at the
+   *  state s goes to on A.  The Symbol for X then stands in for the one
+   *  the reduce would have made for A, which carries the same value and
+   *  positions.  Chains of unit productions are followed to their end.
+   *  Without compact reduces, t detects errors on some lookaheads, so an
+   *  entry is only redirected if the new state detects them as well and
+   *  does not shift the error symbol, which leaves error detection and
+   *  recovery unchanged.  This must be called after check_reductions().
+   * @param reduce_table   the reduce-goto table built along with this one.
+   * @param compact_reduces do the emitted tables default to the most
+   *        frequent reduce?
+   * @return the number of shift and goto entries redirected.
+   */
+  public int remove_unit_reductions(
+    parse_reduce_table reduce_table,
+    boolean            compact_reduces)
+    throws internal_error
+    {
+      /* find the states that do nothing but reduce by a unit production */
+      production unit[] = new production[num_states()];
+      for (int st = 0; st < num_states(); st++)
+	unit[st] = unit_reduction(reduce_table, st);
+
+      int redirected = 0;
+      for (int st = 0; st < num_states(); st++)
+	{
+	  parse_action_row row = under_state[st];
+	  for (int col = 0; col < parse_action_row.size(); col++)
+	    {
+	      /* the error symbol never carries a value worth passing on */
+	      if (col == terminal.error.index()) continue;
+	      if (row.under_term[col].kind() != parse_action.SHIFT) continue;
+	      lalr_state to = ((shift_action)row.under_term[col]).shift_to();
+	      lalr_state target = 
+		unit_target(reduce_table, unit, st, to, compact_reduces);
+	      if (target != to)
+		{
+		  row.under_term[col] = new shift_action(target);
+		  redirected++;
+		}
+	    }
+
+	  lalr_state gotos[] = reduce_table.under_state[st].under_non_term;
+	  for (int col = 0; col < parse_reduce_row.size(); col++)
+	    {
+	      if (gotos[col] == null) continue;
+	      lalr_state target = 
+		unit_target(reduce_table, unit, st, gotos[col], compact_reduces);
+	      if (target != gotos[col])
+		{
+		  gotos[col] = target;
+		  redirected++;
+		}
+	    }
+	}
+      return redirected;
+    }
+
+  /** The unit production that state st does nothing but reduce by, or null
+   *  if it does something else. */
+  protected production unit_reduction(
+    parse_reduce_table reduce_table,
+    int                st)
+    {
+      for (int col = 0; col < parse_reduce_row.size(); col++)
+	if (reduce_table.under_state[st].under_non_term[col] != null)
+	  return null;
+
+      production result = null;
+      for (int col = 0; col < parse_action_row.size(); col++)
+	{
+	  parse_action act = under_state[st].under_term[col];
+	  if (act.kind() == parse_action.ERROR ||
+	      act.kind() == parse_action.NONASSOC)
+	    continue;
+	  if (act.kind() != parse_action.REDUCE) return null;
+	  production prod = ((reduce_action)act).reduce_with();
+	  if (result != null && prod != result) return null;
+	  result = prod;
+	}
+      if (result == null || !result.copies_rhs()) return null;
+      return result;
+    }
+
+  /** Follow the chain of states that do nothing but reduce by a unit
+   *  production, starting from the state that state st goes to, as far as
+   *  that leaves the parser's behaviour unchanged. */
+  protected lalr_state unit_target(
+    parse_reduce_table reduce_table,
+    production         unit[],
+    int                st,
+    lalr_state         to,
+    boolean            compact_reduces)
+    {
+      while (unit[to.index()] != null)
+	{
+	  non_terminal lhs = (non_terminal)unit[to.index()].lhs().the_symbol();
+	  lalr_state next = reduce_table.under_state[st].under_non_term[lhs.index()];
+	  if (next == null || next == to) break;
+	  if (!compact_reduces && !same_errors(to.index(), next.index())) break;
+	  to = next;
+	}
+      return to;
+    }
+
+  /** Does state to detect a syntax error on every lookahead that state from
+   *  detects one on, without shifting the error symbol itself? */
+  protected boolean same_errors(int from, int to)
+    {
+      parse_action_row to_row = under_state[to];
+      if (to_row.under_term[terminal.error.index()].kind() == parse_action.SHIFT)
+	return false;
+      for (int col = 0; col < parse_action_row.size(); col++)
+	{
+	  int kind = under_state[from].under_term[col].kind();
+	  if (kind != parse_action.ERROR && kind != parse_action.NONASSOC)
+	    continue;
+	  kind = to_row.under_term[col].kind();
+	  if (kind != parse_action.ERROR && kind != parse_action.NONASSOC)
+	    return false;
+	}
+      return true;
+    }
+
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*
 
   /** Convert to a string. */
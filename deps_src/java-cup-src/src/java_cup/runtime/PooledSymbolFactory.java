@@ -0,0 +1,143 @@
+package java_cup.runtime;
+
+/**
+ * SymbolFactory that reuses its Symbols: when the parser has reduced by a
+ * production, it gives the Symbols of the right hand side back to this
+ * factory, which hands them out again for the next tokens and non
+ * terminals.  The positions of a Symbol are packed into two longs (see
+ * position()) instead of being kept in Location objects, so that a token
+ * costs no allocation but for its value.
+ *
+ * @version last updated 16-10-2026
+ */
+
+/* *************************************************
+  class PooledSymbolFactory
+
+  The Symbols given back to the factory must not be used any more, by the
+  scanner or by the actions.  This rules out a ScannerBuffer, which keeps
+  all the tokens of a parse, and the XML actions and -locations option of
+  CUP, whose generated code keeps Symbols or takes them for ComplexSymbols.
+  A factory must only be used by one parser at a time.
+ ***************************************************/
+public class PooledSymbolFactory implements SymbolFactory {
+    /**
+     * PooledSymbol, a Symbol with a name and positions packed into longs
+     */
+    public static class PooledSymbol extends Symbol {
+        protected String name;
+        public long xleft, xright;
+        protected PooledSymbol() {
+            super(-1);
+        }
+        public String getName() {
+            return name;
+        }
+        public String toString() {
+            if (xleft == -1 || xright == -1) return "Symbol: " + name;
+            return "Symbol: " + name +
+                " (" + line(xleft) + "/" + column(xleft) + " - " +
+                line(xright) + "/" + column(xright) + ")";
+        }
+    }
+
+    /** The Symbols given back, which are handed out first, in free[0..free_count-1] */
+    private PooledSymbol[] free = new PooledSymbol[64];
+    private int free_count = 0;
+
+    /**
+     * position
+     * packs a line and a column number into a long, as kept by PooledSymbol
+     * @param line      line number
+     * @param column    column number
+     */
+    public static long position(int line, int column) {
+        return ((long)line << 32) | (column & 0xffffffffL);
+    }
+    /**
+     * line
+     * @returns the line number of a position packed by position()
+     */
+    public static int line(long position) {
+        return (int)(position >> 32);
+    }
+    /**
+     * column
+     * @returns the column number of a position packed by position()
+     */
+    public static int column(long position) {
+        return (int)position;
+    }
+
+    /**
+     * release
+     * gives back the Symbols syms[from..from+count-1] to be reused; the
+     * parser calls this with the right hand side of a production once it
+     * has reduced by it.  Symbols made by something else than a
+     * PooledSymbolFactory are left to the garbage collector.
+     */
+    public void release(Symbol[] syms, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            if (!(syms[i] instanceof PooledSymbol))
+                continue;
+            PooledSymbol s = (PooledSymbol)syms[i];
+            s.value = null;
+            s.used_by_parser = false;
+            if (free_count == free.length)
+                free = java.util.Arrays.copyOf(free, 2 * free_count);
+            free[free_count++] = s;
+        }
+    }
+
+    /** Takes a Symbol from those given back, or makes a new one, and fills it in */
+    private PooledSymbol get(String name, int id, int l, int r,
+                             long xl, long xr, Object value) {
+        PooledSymbol s = free_count > 0 ? free[--free_count] : new PooledSymbol();
+        s.name = name;
+        s.sym = id;
+        s.left = l;
+        s.right = r;
+        s.xleft = xl;
+        s.xright = xr;
+        s.value = value;
+        return s;
+    }
+
+    // Factory methods
+    /**
+     * newSymbol
+     * creates a symbol with positions packed by position();
+     * this is used for terminals with values!
+     */
+    public Symbol newSymbol(String name, int id, long left, long right, Object value) {
+        return get(name, id, -1, -1, left, right, value);
+    }
+    /**
+     * newSymbol
+     * creates a symbol with positions packed by position();
+     * this is used for terminals without values!
+     */
+    public Symbol newSymbol(String name, int id, long left, long right) {
+        return get(name, id, -1, -1, left, right, null);
+    }
+    public Symbol newSymbol(String name, int id, Symbol left, Symbol right, Object value) {
+        return get(name, id, left.left, right.right,
+                   left instanceof PooledSymbol ? ((PooledSymbol)left).xleft : -1,
+                   right instanceof PooledSymbol ? ((PooledSymbol)right).xright : -1,
+                   value);
+    }
+    public Symbol newSymbol(String name, int id, Symbol left, Symbol right) {
+        return newSymbol(name, id, left, right, null);
+    }
+    public Symbol newSymbol(String name, int id) {
+        return get(name, id, -1, -1, -1, -1, null);
+    }
+    public Symbol newSymbol(String name, int id, Object value) {
+        return get(name, id, -1, -1, -1, -1, value);
+    }
+    public Symbol startSymbol(String name, int id, int state) {
+        PooledSymbol s = get(name, id, -1, -1, -1, -1, null);
+        s.parse_state = state;
+        return s;
+    }
+}
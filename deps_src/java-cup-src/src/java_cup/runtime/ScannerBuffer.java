@@ -1,12 +1,15 @@
 package java_cup.runtime;
 
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.AbstractList;
 import java.util.List;
+import java.util.RandomAccess;
 
 public class ScannerBuffer implements Scanner {
 	private Scanner inner;
-	private List<Symbol> buffer = new LinkedList<Symbol>();
+	/** the tokens read so far, the token with index i at buffer[i] */
+	protected Symbol[] buffer = new Symbol[64];
+	/** the number of tokens read so far */
+	protected int count;
 	/**
 	 * Wraps around a custom scanner and stores all so far produced tokens in a buffer
 	 * @param inner the scanner to buffer
@@ -16,16 +19,60 @@ public class ScannerBuffer implements Scanner {
 	}
 	/**
 	 * Read-Only access to the buffered Symbols 
-	 * @return an unmodifiable Version of the buffer
+	 * @return an unmodifiable view of the buffer, from the token first() on
 	 */
 	public List<Symbol> getBuffered() {
-		return Collections.unmodifiableList(buffer);
+		return new BufferedList();
+	}
+	/**
+	 * The number of tokens read so far, which is one more than the index
+	 * of the last one
+	 */
+	public int size() {
+		return count;
+	}
+	/**
+	 * The index of the first token still buffered; all of them are, so 0
+	 */
+	public int first() {
+		return 0;
+	}
+	/**
+	 * Random access to the buffered Symbols
+	 * @param index the index of the token, from first() to size()-1
+	 * @return the token with that index
+	 */
+	public Symbol get(int index) {
+		if (index < first() || index >= count)
+			throw new IndexOutOfBoundsException("token "+index+" of "+first()+".."+(count-1));
+		return buffer[index];
+	}
+	/**
+	 * Stores the token that was just read, which gets index size()-1
+	 */
+	protected void add(Symbol s) {
+		if (count == buffer.length)
+			buffer = java.util.Arrays.copyOf(buffer, 2 * count);
+		buffer[count++] = s;
 	}
 	@Override
 	public Symbol next_token() throws Exception {
 		Symbol buffered = inner.next_token();
-		buffer.add(buffered);
+		add(buffered);
 		return buffered;
 	}
 
+	/**
+	 * The list returned by getBuffered(), which reads through get()
+	 */
+	private class BufferedList extends AbstractList<Symbol> implements RandomAccess {
+		public Symbol get(int i) {
+			if (i < 0)
+				throw new IndexOutOfBoundsException("token "+i);
+			return ScannerBuffer.this.get(first() + i);
+		}
+		public int size() {
+			return count - first();
+		}
+	}
 }
@@ -4,7 +4,9 @@ package java_cup.runtime;
 import java.lang.reflect.Field;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Stack;
+import java.util.WeakHashMap;
 
 import java_cup.runtime.ComplexSymbolFactory.ComplexSymbol;
 
@@ -177,6 +179,33 @@ public abstract class lr_parser {
    */
   protected int error_sync_size() {return _error_sync_size; }
 
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** The default largest number of entries the action table may have once
+   *  expanded into one entry per state and terminal (see expand_tables()). 
+   */
+  protected final static int _dense_table_limit = 1 << 20;
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** The largest number of entries the action table may have once expanded 
+   *  into one entry per state and terminal.  Grammars whose tables fit are
+   *  parsed with direct-indexed tables; the others, and all of them when
+   *  this returns 0, with the compressed rows of action_table() and 
+   *  reduce_table(). 
+   */
+  protected int dense_table_limit() {return _dense_table_limit; }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** The dense tables expanded so far, by the action table they were
+   *  expanded from.  As the generated parsers keep their tables in static
+   *  fields, all the parsers of a grammar share one expansion.  The keys are
+   *  weak, so that the tables of a parser class that is unloaded go too.
+   */
+  private static final Map<short[][], dense_tables> _dense_tables =
+    new WeakHashMap<short[][], dense_tables>();
+
   /*-----------------------------------------------------------*/
   /*--- (Access to) Instance Variables ------------------------*/
   /*-----------------------------------------------------------*/
@@ -269,7 +298,7 @@ public abstract class lr_parser {
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
   /** Indication of the index for top of stack (for use by actions). */
-  protected int tos;
+  protected int tos = -1;
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
@@ -278,8 +307,65 @@ public abstract class lr_parser {
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
-  /** The parse stack itself. */
-  protected Stack stack = new Stack();
+  /** The states of the parse stack, from the bottom (index 0) up to the
+   *  top (index tos).  The parser looks up its tables with the state on top
+   *  of this array, and pops the handle of a production by lowering tos.
+   */
+  protected int[] state_stack = new int[64];
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** The Symbols of the parse stack, parallel to state_stack (the Symbol at
+   *  an index was shifted into the state at the same index of state_stack).
+   *  Generated action code reads the Symbols of the right hand side of a 
+   *  production from here (see symbol_stack()). 
+   */
+  protected Symbol[] symbol_stack = new Symbol[64];
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** The parse stack itself, as a java.util.Stack of Symbols.  This is a 
+   *  view of state_stack and symbol_stack, kept for action code and 
+   *  subclasses that use the stack directly (see parse_stack_view). 
+   */
+  protected Stack stack = new parse_stack_view(this);
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** The Symbols of the parse stack (for use by actions).  The array is
+   *  replaced when the stack grows, which can only happen on a shift, so an
+   *  action may keep it while it runs but not from one action to the next.
+   */
+  public final Symbol[] symbol_stack() {return symbol_stack; }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Push a Symbol, which takes the parser to state, onto the parse stack.
+   *
+   * @param sym   the Symbol shifted, or the left hand side of a reduce.
+   * @param state the state the parser goes to.
+   */
+  protected final void push_symbol(Symbol sym, int state)
+    {
+      if (++tos == state_stack.length)
+	{
+	  state_stack  = java.util.Arrays.copyOf(state_stack, 2 * tos);
+	  symbol_stack = java.util.Arrays.copyOf(symbol_stack, 2 * tos);
+	}
+      state_stack[tos]  = state;
+      symbol_stack[tos] = sym;
+      sym.parse_state   = state;
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** The symbol factory, when it is a PooledSymbolFactory, to which parse()
+   *  and debug_parse() give back the Symbols of the handle after each 
+   *  reduce; otherwise null.  The actions may read the handle while they 
+   *  run, but must not keep its Symbols.  Error recovery does not give
+   *  back the Symbols it discards. 
+   */
+  private PooledSymbolFactory symbol_pool;
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
@@ -298,6 +384,27 @@ public abstract class lr_parser {
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
+  /** The action table expanded to one entry per state and terminal (the 
+   *  entry for a state and a terminal is at state*dense_action_width+sym), 
+   *  or null when the compressed table is used. 
+   */
+  protected short[] dense_action_tab;
+
+  /** The number of entries per state of the dense action table. */
+  protected int dense_action_width;
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** The reduce-goto table expanded to one entry per state and non terminal,
+   *  or null when the compressed table is used. 
+   */
+  protected short[] dense_reduce_tab;
+
+  /** The number of entries per state of the dense reduce-goto table. */
+  protected int dense_reduce_width;
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
   /** This is the scanner object used by the default implementation
    *  of scan() to get Symbols.  To avoid name conflicts with existing
    *  code, this field is private. [CSA/davidm] */
@@ -472,7 +579,7 @@ public abstract class lr_parser {
    */
   public List<Integer> expected_token_ids(){
 	  List<Integer> ret = new LinkedList<Integer>();
-	  int parse_state = ((Symbol)stack.peek()).parse_state ;
+	  int parse_state = state_stack[tos] ;
 	  short[] row = action_tab[parse_state];
 	  for (int i = 0; i<row.length; i+=2){
 		  if (row[i]==-1) continue;
@@ -541,7 +648,47 @@ public abstract class lr_parser {
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
-  /** Fetch an action from the action table.  The table is broken up into
+  /** Expand the action and reduce-goto tables into dense_action_tab and
+   *  dense_reduce_tab, which have an entry for every state and Symbol, so 
+   *  that get_action() and get_reduce() index them directly instead of 
+   *  searching the rows.  Nothing is done if the action table would have
+   *  more than dense_table_limit() entries.  The expansion of a set of 
+   *  tables is done once and shared by all the parsers that use them (see
+   *  _dense_tables), so the dense tables must not be written to. 
+   */
+  protected void expand_tables()
+    {
+      dense_action_tab = null;
+      dense_reduce_tab = null;
+
+      dense_tables dense;
+      synchronized (_dense_tables)
+	{
+	  dense = _dense_tables.get(action_tab);
+	  if (dense == null || dense.production_tab != production_tab ||
+	      dense.reduce_tab != reduce_tab)
+	    {
+	      dense = new dense_tables(production_tab, action_tab, reduce_tab,
+				       EOF_sym(), error_sym());
+	      _dense_tables.put(action_tab, dense);
+	    }
+	}
+
+      if (dense.size > dense_table_limit())
+	return;
+
+      dense.expand(action_tab);
+      dense_action_tab   = dense.actions;
+      dense_action_width = dense.action_width;
+      dense_reduce_tab   = dense.gotos;
+      dense_reduce_width = dense.reduce_width;
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Fetch an action from the action table.  When the tables have been
+   *  expanded (see expand_tables()) this is a single array access.  
+   *  Otherwise the table is broken up into
    *  rows, one per state (rows are indexed directly by state number).  
    *  Within each row, a list of index, value pairs are given (as sequential
    *  entries in the table), and the list is terminated by a default entry 
@@ -553,6 +700,9 @@ public abstract class lr_parser {
    */
   protected final short get_action(int state, int sym)
     {
+      if (dense_action_tab != null && sym < dense_action_width)
+	return dense_action_tab[state * dense_action_width + sym];
+
       short tag;
       int first, last, probe;
       short[] row = action_tab[state];
@@ -596,7 +746,9 @@ public abstract class lr_parser {
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
-  /** Fetch a state from the reduce-goto table.  The table is broken up into
+  /** Fetch a state from the reduce-goto table.  When the tables have been
+   *  expanded (see expand_tables()) this is a single array access.  
+   *  Otherwise the table is broken up into
    *  rows, one per state (rows are indexed directly by state number).  
    *  Within each row, a list of index, value pairs are given (as sequential
    *  entries in the table), and the list is terminated by a default entry 
@@ -608,6 +760,9 @@ public abstract class lr_parser {
    */
   protected final short get_reduce(int state, int sym)
     {
+      if (dense_reduce_tab != null && sym < dense_reduce_width)
+	return dense_reduce_tab[state * dense_reduce_width + sym];
+
       short tag;
       short[] row = reduce_tab[state];
 
@@ -653,6 +808,9 @@ public abstract class lr_parser {
       production_tab = production_table();
       action_tab     = action_table();
       reduce_tab     = reduce_table();
+      expand_tables();
+      symbol_pool = getSymbolFactory() instanceof PooledSymbolFactory ?
+	(PooledSymbolFactory)getSymbolFactory() : null;
 
       /* initialize the action encapsulation object */
       init_actions();
@@ -664,9 +822,9 @@ public abstract class lr_parser {
       cur_token = scan(); 
 
       /* push dummy Symbol with start state to get us underway */
-      stack.removeAllElements();
-      stack.push(getSymbolFactory().startSymbol("START", 0, start_state()));
-      tos = 0;
+      tos = -1;
+      push_symbol(getSymbolFactory().startSymbol("START", 0, start_state()),
+		  start_state());
 
       /* continue until we are told to stop */
       for (_done_parsing = false; !_done_parsing; )
@@ -678,16 +836,14 @@ public abstract class lr_parser {
 	  /* current state is always on the top of the stack */
 
 	  /* look up action out of the current state with the current input */
-	  act = get_action(((Symbol)stack.peek()).parse_state, cur_token.sym);
+	  act = get_action(state_stack[tos], cur_token.sym);
 
 	  /* decode the action -- > 0 encodes shift */
 	  if (act > 0)
 	    {
 	      /* shift to the encoded state by pushing it on the stack */
-	      cur_token.parse_state = act-1;
 	      cur_token.used_by_parser = true;
-	      stack.push(cur_token);
-	      tos++;
+	      push_symbol(cur_token, act-1);
 
 	      /* advance to the next Symbol */
 	      cur_token = scan();
@@ -703,20 +859,16 @@ public abstract class lr_parser {
 	      handle_size = production_tab[(-act)-1][1];
 
 	      /* pop the handle off the stack */
-	      for (int i = 0; i < handle_size; i++)
-		{
-		  stack.pop();
-		  tos--;
-		}
+	      tos -= handle_size;
+	      if (symbol_pool != null)
+		symbol_pool.release(symbol_stack, tos + 1, handle_size);
 	      
 	      /* look up the state to go to from the one popped back to */
-	      act = get_reduce(((Symbol)stack.peek()).parse_state, lhs_sym_num);
+	      act = get_reduce(state_stack[tos], lhs_sym_num);
 
 	      /* shift to that state */
-	      lhs_sym.parse_state = act;
 	      lhs_sym.used_by_parser = true;
-	      stack.push(lhs_sym);
-	      tos++;
+	      push_symbol(lhs_sym, act);
 	    }
 	  /* finally if the entry is zero, we have an error */
 	  else if (act == 0)
@@ -733,7 +885,7 @@ public abstract class lr_parser {
 		  /* just in case that wasn't fatal enough, end parse */
 		  done_parsing();
 		} else {
-		  lhs_sym = (Symbol)stack.peek();
+		  lhs_sym = symbol_stack[tos];
 		}
 	    }
 	}
@@ -839,6 +991,9 @@ public abstract class lr_parser {
       production_tab = production_table();
       action_tab     = action_table();
       reduce_tab     = reduce_table();
+      expand_tables();
+      symbol_pool = getSymbolFactory() instanceof PooledSymbolFactory ?
+	(PooledSymbolFactory)getSymbolFactory() : null;
 
       debug_message("# Initializing parser");
 
@@ -854,9 +1009,9 @@ public abstract class lr_parser {
       debug_message("# Current Symbol is #" + cur_token.sym);
 
       /* push dummy Symbol with start state to get us underway */
-      stack.removeAllElements();
-      stack.push(getSymbolFactory().startSymbol("START",0, start_state()));
-      tos = 0;
+      tos = -1;
+      push_symbol(getSymbolFactory().startSymbol("START",0, start_state()),
+		  start_state());
 
       /* continue until we are told to stop */
       for (_done_parsing = false; !_done_parsing; )
@@ -869,17 +1024,15 @@ public abstract class lr_parser {
 	  //debug_stack();
 
 	  /* look up action out of the current state with the current input */
-	  act = get_action(((Symbol)stack.peek()).parse_state, cur_token.sym);
+	  act = get_action(state_stack[tos], cur_token.sym);
 
 	  /* decode the action -- > 0 encodes shift */
 	  if (act > 0)
 	    {
 	      /* shift to the encoded state by pushing it on the stack */
-	      cur_token.parse_state = act-1;
 	      cur_token.used_by_parser = true;
+	      push_symbol(cur_token, act-1);
 	      debug_shift(cur_token);
-	      stack.push(cur_token);
-	      tos++;
 
 	      /* advance to the next Symbol */
 	      cur_token = scan();
@@ -898,23 +1051,19 @@ public abstract class lr_parser {
 	      debug_reduce((-act)-1, lhs_sym_num, handle_size);
 
 	      /* pop the handle off the stack */
-	      for (int i = 0; i < handle_size; i++)
-		{
-		  stack.pop();
-		  tos--;
-		}
+	      tos -= handle_size;
+	      if (symbol_pool != null)
+		symbol_pool.release(symbol_stack, tos + 1, handle_size);
 	      
 	      /* look up the state to go to from the one popped back to */
-	      act = get_reduce(((Symbol)stack.peek()).parse_state, lhs_sym_num);
+	      act = get_reduce(state_stack[tos], lhs_sym_num);
 	      debug_message("# Reduce rule: top state " +
-			     ((Symbol)stack.peek()).parse_state +
+			     state_stack[tos] +
 			     ", lhs sym " + lhs_sym_num + " -> state " + act); 
 
 	      /* shift to that state */
-	      lhs_sym.parse_state = act;
 	      lhs_sym.used_by_parser = true;
-	      stack.push(lhs_sym);
-	      tos++;
+	      push_symbol(lhs_sym, act);
 
 	      debug_message("# Goto state #" + act);
 	    }
@@ -933,7 +1082,7 @@ public abstract class lr_parser {
 		  /* just in case that wasn't fatal enough, end parse */
 		  done_parsing();
 		} else {
-		  lhs_sym = (Symbol)stack.peek();
+		  lhs_sym = symbol_stack[tos];
 		}
 	    }
 	}
@@ -1028,7 +1177,7 @@ public abstract class lr_parser {
   protected boolean shift_under_error()
     {
       /* is there a shift under error Symbol */
-      return get_action(((Symbol)stack.peek()).parse_state, error_sym()) > 0;
+      return get_action(state_stack[tos], error_sym()) > 0;
     }
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
@@ -1048,7 +1197,7 @@ public abstract class lr_parser {
       if (debug) debug_message("# Finding recovery state on stack");
 
       /* Remember the right-position of the top symbol on the stack */
-      Symbol right = ((Symbol)stack.peek());// TUM 20060327 removed .right	
+      Symbol right = symbol_stack[tos];// TUM 20060327 removed .right	
       Symbol left  = right;// TUM 20060327 removed .left	
 
       /* pop down until we can shift under error Symbol */
@@ -1057,12 +1206,11 @@ public abstract class lr_parser {
 	  /* pop the stack */
 	  if (debug) 
 	    debug_message("# Pop stack by one, state was # " +
-	                  ((Symbol)stack.peek()).parse_state);
-          left = ((Symbol)stack.pop()); // TUM 20060327 removed .left	
-	  tos--;
+	                  state_stack[tos]);
+          left = symbol_stack[tos--]; // TUM 20060327 removed .left	
 
 	  /* if we have hit bottom, we fail */
-	  if (stack.empty()) 
+	  if (tos < 0) 
 	    {
 	      if (debug) debug_message("# No recovery state found on stack");
 	      return false;
@@ -1070,20 +1218,18 @@ public abstract class lr_parser {
 	}
 
       /* state on top of the stack can shift under error, find the shift */
-      act = get_action(((Symbol)stack.peek()).parse_state, error_sym());
+      act = get_action(state_stack[tos], error_sym());
       if (debug) 
 	{
 	  debug_message("# Recover state found (#" + 
-			((Symbol)stack.peek()).parse_state + ")");
+			state_stack[tos] + ")");
 	  debug_message("# Shifting on error to state #" + (act-1));
 	}
 
       /* build and shift a special error Symbol */
       error_token = getSymbolFactory().newSymbol("ERROR",error_sym(), left, right);
-      error_token.parse_state = act-1;
       error_token.used_by_parser = true;
-      stack.push(error_token);
-      tos++;
+      push_symbol(error_token, act-1);
 
       return true;
     }
@@ -1261,7 +1407,7 @@ public abstract class lr_parser {
 	  debug_message("# Reparsing saved input with actions");
 	  debug_message("# Current Symbol is #" + cur_err_token().sym);
 	  debug_message("# Current state is #" + 
-			((Symbol)stack.peek()).parse_state);
+			state_stack[tos]);
 	}
 
       /* continue until we accept or have read all lookahead input */
@@ -1271,17 +1417,15 @@ public abstract class lr_parser {
 
 	  /* look up action out of the current state with the current input */
 	  act = 
-	    get_action(((Symbol)stack.peek()).parse_state, cur_err_token().sym);
+	    get_action(state_stack[tos], cur_err_token().sym);
 
 	  /* decode the action -- > 0 encodes shift */
 	  if (act > 0)
 	    {
 	      /* shift to the encoded state by pushing it on the stack */
-	      cur_err_token().parse_state = act-1;
 	      cur_err_token().used_by_parser = true;
+	      push_symbol(cur_err_token(), act-1);
 	      if (debug) debug_shift(cur_err_token());
-	      stack.push(cur_err_token());
-	      tos++;
 
 	      /* advance to the next Symbol, if there is none, we are done */
 	      if (!advance_lookahead()) 
@@ -1314,20 +1458,14 @@ public abstract class lr_parser {
 	      if (debug) debug_reduce((-act)-1, lhs_sym_num, handle_size);
 
 	      /* pop the handle off the stack */
-	      for (int i = 0; i < handle_size; i++)
-		{
-		  stack.pop();
-		  tos--;
-		}
+	      tos -= handle_size;
 	      
 	      /* look up the state to go to from the one popped back to */
-	      act = get_reduce(((Symbol)stack.peek()).parse_state, lhs_sym_num);
+	      act = get_reduce(state_stack[tos], lhs_sym_num);
 
 	      /* shift to that state */
-	      lhs_sym.parse_state = act;
 	      lhs_sym.used_by_parser = true;
-	      stack.push(lhs_sym);
-	      tos++;
+	      push_symbol(lhs_sym, act);
 	       
 	      if (debug) debug_message("# Goto state #" + act);
 
@@ -1349,18 +1487,25 @@ public abstract class lr_parser {
   /** Utility function: unpacks parse tables from strings */
   protected static short[][] unpackFromStrings(String[] sa)
     {
-      // Concatanate initialization strings.
-      StringBuffer sb = new StringBuffer(sa[0]);
-      for (int i=1; i<sa.length; i++)
-	sb.append(sa[i]);
+      // Concatenate initialization strings into one array, which is read
+      // much faster than a StringBuffer, whose charAt() is synchronized.
+      int length = 0;
+      for (int i=0; i<sa.length; i++)
+	length += sa[i].length();
+      char[] buf = new char[length];
+      length = 0;
+      for (int i=0; i<sa.length; i++) {
+	sa[i].getChars(0, sa[i].length(), buf, length);
+	length += sa[i].length();
+      }
       int n=0; // location in initialization string
-      int size1 = (((int)sb.charAt(n))<<16) | ((int)sb.charAt(n+1)); n+=2;
+      int size1 = (((int)buf[n])<<16) | ((int)buf[n+1]); n+=2;
       short[][] result = new short[size1][];
       for (int i=0; i<size1; i++) {
-        int size2 = (((int)sb.charAt(n))<<16) | ((int)sb.charAt(n+1)); n+=2;
+        int size2 = (((int)buf[n])<<16) | ((int)buf[n+1]); n+=2;
         result[i] = new short[size2];
         for (int j=0; j<size2; j++)
-          result[i][j] = (short) (sb.charAt(n++)-2);
+          result[i][j] = (short) (buf[n++]-2);
       }
       return result;
     }
@@ -0,0 +1,113 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java_cup.runtime.ComplexSymbolFactory;
+import java_cup.runtime.Scanner;
+import java_cup.runtime.ScannerBuffer;
+import java_cup.runtime.Symbol;
+
+/**
+ * Compares the parse throughput of the compressed parse tables, which
+ * lr_parser searches on every lookup, with that of the dense tables it
+ * expands them into:
+ *
+ *    java ParseBench file times runs
+ *
+ * Each run parses the file the given number of times with each encoding,
+ * scanning included (the lexer needs the typedef names of the parser, so
+ * the tokens cannot be scanned beforehand).  Then the tokens of the file
+ * are run through the tables alone, on a stack of states, without actions.
+ */
+public class ParseBench {
+    public static void main(String args[]) throws Exception {
+	String src = new String(Files.readAllBytes(Paths.get(args[0])));
+	int times = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+	int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+	List<Symbol> tokens = null;
+	for (int run = 1; run <= runs; run++) {
+	    for (boolean dense : new boolean[] {false, true}) {
+		long start = System.nanoTime();
+		for (int i = 0; i < times; i++) {
+		    ComplexSymbolFactory csf = new ComplexSymbolFactory();
+		    ScannerBuffer lexer = new ScannerBuffer(
+			new Lexer(new StringReader(src), csf));
+		    Parser p = dense ? new Parser(lexer, csf)
+				     : new CompressedParser(lexer, csf);
+		    Parser.typenames.clear();
+		    Parser.newScope();
+		    p.parse();
+		    tokens = lexer.getBuffered();
+		}
+		report(run, dense ? "dense" : "compressed", start,
+		       times * tokens.size());
+	    }
+	}
+
+	int[] kinds = new int[tokens.size()];
+	for (int i = 0; i < kinds.length; i++)
+	    kinds[i] = tokens.get(i).sym;
+	for (int run = 1; run <= runs; run++) {
+	    for (boolean dense : new boolean[] {false, true}) {
+		Recognizer r = new Recognizer(dense);
+		long start = System.nanoTime();
+		for (int i = 0; i < times; i++)
+		    r.recognize(kinds);
+		report(run, dense ? "tables dense" : "tables compressed", start,
+		       times * kinds.length);
+	    }
+	}
+    }
+
+    static class CompressedParser extends Parser {
+	CompressedParser(Scanner s, ComplexSymbolFactory sf) {
+	    super(s, sf);
+	}
+	protected int dense_table_limit() {
+	    return 0;
+	}
+    }
+
+    /** Runs the parse tables over a list of token kinds, with no actions. */
+    static class Recognizer extends Parser {
+	int[] states = new int[64];
+
+	Recognizer(boolean dense) {
+	    production_tab = production_table();
+	    action_tab = action_table();
+	    reduce_tab = reduce_table();
+	    if (dense)
+		expand_tables();
+	}
+
+	void recognize(int[] kinds) {
+	    int top = 0;
+	    states[0] = start_state();
+	    int i = 0;
+	    for (;;) {
+		int act = get_action(states[top], kinds[i]);
+		if (act > 0) {
+		    if (++top == states.length)
+			states = Arrays.copyOf(states, 2 * top);
+		    states[top] = act - 1;
+		    i++;
+		} else if (act < 0) {
+		    if (-act - 1 == start_production())
+			return;
+		    top -= production_tab[-act - 1][1];
+		    int lhs = production_tab[-act - 1][0];
+		    states[top + 1] = get_reduce(states[top], lhs);
+		    top++;
+		} else {
+		    throw new IllegalStateException("syntax error");
+		}
+	    }
+	}
+    }
+
+    static void report(int run, String tables, long start, int tokens) {
+	double secs = (System.nanoTime() - start) / 1e9;
+	System.out.printf("run %d  %-18s %9.3f ms  %6.2f M tokens/s%n", run,
+			  tables, secs * 1e3, tokens / secs / 1e6);
+    }
+}
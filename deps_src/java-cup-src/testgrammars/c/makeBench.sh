@@ -0,0 +1,5 @@
+rm -f Lexer.java Parser.java sym.java *.class
+jflex c.jflex
+java -jar ../../dist/java-cup-11b.jar -locations -interface -parser Parser -xmlactions c.cup
+javac -cp ../../dist/java-cup-11b-runtime.jar:. *.java
+java -cp ../../dist/java-cup-11b-runtime.jar:. ParseBench complicated.c 2000 5
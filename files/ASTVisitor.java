@@ -0,0 +1,419 @@
+/**
+ * ASTVisitor
+ *
+ * A pass over the AST that is not a method of every node class.  A
+ * visitor is given to the accept method of a node, which calls
+ *   - preVisit on the node; if that returns true, accept on each of the
+ *     node's kids, in the order of the source,
+ *   - then postVisit on the node, and returns what it returns.
+ * Every node class has its own preVisit and postVisit, chosen when the
+ * node class is compiled, so a node dispatches with one call on the
+ * visitor, and walking the tree allocates nothing.
+ *
+ * The hooks of every node class default to defaultPreVisit and
+ * defaultPostVisit, so a pass only overrides the hooks of the nodes it is
+ * interested in, or the defaults to do something at every node.  R is the
+ * type of what postVisit returns (Void for a pass that returns nothing);
+ * the results for the kids are not kept, so a pass that needs them keeps
+ * them itself.
+ */
+class ASTVisitor<R> {
+    // what all the preVisit methods do unless overridden: walk the kids
+    public boolean defaultPreVisit(ASTnode n) {
+        return true;
+    }
+
+    // what all the postVisit methods do unless overridden
+    public R defaultPostVisit(ASTnode n) {
+        return null;
+    }
+
+    // **********************************************************************
+    // ProgramNode,  DeclListNode, FormalsListNode, FnBodyNode,
+    // StmtListNode, ExpListNode
+    // **********************************************************************
+
+    public boolean preVisit(ProgramNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(ProgramNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(DeclListNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(DeclListNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(FormalsListNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(FormalsListNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(FnBodyNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(FnBodyNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(StmtListNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(StmtListNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(ExpListNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(ExpListNode n) {
+        return defaultPostVisit(n);
+    }
+
+    // **********************************************************************
+    // DeclNode and its subclasses
+    // **********************************************************************
+
+    public boolean preVisit(VarDeclNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(VarDeclNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(FnDeclNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(FnDeclNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(FormalDeclNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(FormalDeclNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(StructDeclNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(StructDeclNode n) {
+        return defaultPostVisit(n);
+    }
+
+    // **********************************************************************
+    // TypeNode and its Subclasses
+    // **********************************************************************
+
+    public boolean preVisit(IntNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(IntNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(BoolNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(BoolNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(VoidNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(VoidNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(StructNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(StructNode n) {
+        return defaultPostVisit(n);
+    }
+
+    // **********************************************************************
+    // StmtNode and its subclasses
+    // **********************************************************************
+
+    public boolean preVisit(AssignStmtNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(AssignStmtNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(PostIncStmtNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(PostIncStmtNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(PostDecStmtNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(PostDecStmtNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(ReadStmtNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(ReadStmtNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(WriteStmtNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(WriteStmtNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(IfStmtNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(IfStmtNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(IfElseStmtNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(IfElseStmtNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(WhileStmtNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(WhileStmtNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(CallStmtNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(CallStmtNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(ReturnStmtNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(ReturnStmtNode n) {
+        return defaultPostVisit(n);
+    }
+
+    // **********************************************************************
+    // ExpNode and its subclasses
+    // **********************************************************************
+
+    public boolean preVisit(IntLitNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(IntLitNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(StringLitNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(StringLitNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(TrueNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(TrueNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(FalseNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(FalseNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(IdNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(IdNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(DotAccessExpNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(DotAccessExpNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(AssignNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(AssignNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(CallExpNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(CallExpNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(UnaryMinusNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(UnaryMinusNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(NotNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(NotNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(PlusNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(PlusNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(MinusNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(MinusNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(TimesNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(TimesNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(DivideNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(DivideNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(AndNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(AndNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(OrNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(OrNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(EqualsNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(EqualsNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(NotEqualsNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(NotEqualsNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(LessNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(LessNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(GreaterNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(GreaterNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(LessEqNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(LessEqNode n) {
+        return defaultPostVisit(n);
+    }
+
+    public boolean preVisit(GreaterEqNode n) {
+        return defaultPreVisit(n);
+    }
+
+    public R postVisit(GreaterEqNode n) {
+        return defaultPostVisit(n);
+    }
+}
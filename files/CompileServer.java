@@ -0,0 +1,207 @@
+import java.io.*;
+import java.net.*;
+import java.util.*;
+
+/**
+ * CompileServer
+ *
+ * A long-running compile server for cimple programs.  Keeping one JVM alive
+ * means that class loading, the parser tables and the JIT-compiled code are
+ * paid for once instead of on every compilation.
+ *
+ * The server reads requests, one per line, either from standard input (and
+ * answers on standard output) or from clients connected to a TCP port on
+ * the loopback interface.  The requests are:
+ *
+ *    compile <file>   compile the named file
+ *    stats            report the latencies of the compile requests so far
+ *    quit             close this connection (or, on stdin, stop the server)
+ *
+ * The answer to a compile request is
+ *
+ *    ok | errors
+ *    diagnostics <n>
+ *    ...n lines of error and warning messages...
+ *    output <m>
+ *    ...m lines of unparsed program (none if there were errors)...
+ *    done <milliseconds>
+ *
+ * A file that cannot be read or compiled at all is answered with "errors"
+ * and the reason as its only diagnostic, and the server goes on.
+ *
+ * The answer to a stats request is the report of LatencyHistogram.print,
+ * then, for an incremental server, one line per file telling how many of
+ * its declarations were analysed and reused, followed by a line "done".
+ * An unknown request is answered with "unknown request" followed by "done".
+ */
+public class CompileServer {
+    private LatencyHistogram latencies = new LatencyHistogram();
+    // if not null, the incremental analysis of each file compiled so far
+    private Map<String, IncrementalAnalysis> analyses;
+
+    /**
+     * Creates a server; when incremental is true, the name analysis of a
+     * file only analyses what changed since the file was last compiled.
+     */
+    public CompileServer(boolean incremental) {
+        if (incremental) {
+            analyses = new TreeMap<String, IncrementalAnalysis>();
+        }
+    }
+
+    /**
+     * Serves requests read from in, writing the answers to out, until a quit
+     * request or the end of in.
+     */
+    public void serve(BufferedReader in, PrintStream out) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.length() == 0) {
+                continue;
+            }
+            if (line.equals("quit")) {
+                break;
+            } else if (line.equals("stats")) {
+                latencies.print(out);
+                printAnalyses(out);
+                out.println("done");
+            } else if (line.startsWith("compile ")) {
+                compile(line.substring("compile ".length()).trim(), out);
+            } else {
+                out.println("unknown request");
+                out.println("done");
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * Accepts clients on the given port of the loopback interface, serving
+     * each of them on its own thread.  Does not return.
+     */
+    public void listen(int port) throws IOException {
+        ServerSocket server =
+            new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        System.err.println("compile server listening on port " +
+                           server.getLocalPort());
+        while (true) {
+            final Socket client = server.accept();
+            Thread t = new Thread() {
+                public void run() {
+                    try {
+                        serve(new BufferedReader(new InputStreamReader(
+                                  client.getInputStream())),
+                              new PrintStream(client.getOutputStream()));
+                    } catch (IOException ex) {
+                        System.err.println("compile server: " + ex);
+                    } finally {
+                        try {
+                            client.close();
+                        } catch (IOException ex) {
+                        }
+                    }
+                }
+            };
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    /**
+     * Compiles the named file and writes the answer to out.
+     */
+    private void compile(String name, PrintStream out) {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        UnparseWriter unparse = P4.unparseWriter();
+        PrintStream errStream = new PrintStream(err);
+        PrintStream ignored = P4.nullStream();
+        boolean ok = false;
+
+        long start = System.nanoTime();
+        try {
+            SourceFile inFile = SourceFile.read(name);
+            IncrementalAnalysis incremental = analysis(name);
+            if (incremental == null) {
+                ok = P4.compile(inFile.scanner(), unparse, ignored, errStream,
+                                false, null);
+            } else {
+                // one version of a file at a time
+                synchronized (incremental) {
+                    ok = P4.compile(inFile.scanner(), unparse, ignored,
+                                    errStream, false, incremental);
+                }
+            }
+        } catch (FileNotFoundException ex) {
+            errStream.println("File " + name + " not found.");
+        } catch (IOException | RuntimeException | StackOverflowError ex) {
+            // only this request fails, not the server or the connection
+            errStream.println("Exception occured while compiling " + name +
+                              ": " + ex);
+            ok = false;
+        }
+        long time = System.nanoTime() - start;
+        latencies.record(time);
+
+        errStream.flush();
+        out.println(ok ? "ok" : "errors");
+        printSection("diagnostics", err.toString(), out);
+        printSection("output", ok ? unparse.toString() : "", out);
+        out.printf("done %.3f%n", time / 1e6);
+    }
+
+    /**
+     * Returns the incremental analysis of the named file, or null if this
+     * server is not incremental.
+     */
+    private IncrementalAnalysis analysis(String name) throws IOException {
+        if (analyses == null) {
+            return null;
+        }
+        String path = new File(name).getCanonicalPath();
+        synchronized (analyses) {
+            IncrementalAnalysis a = analyses.get(path);
+            if (a == null) {
+                a = new IncrementalAnalysis();
+                analyses.put(path, a);
+            }
+            return a;
+        }
+    }
+
+    /**
+     * Prints, for an incremental server, the statistics of the incremental
+     * analysis of every file compiled so far.
+     */
+    private void printAnalyses(PrintStream out) {
+        if (analyses == null) {
+            return;
+        }
+        synchronized (analyses) {
+            for (Map.Entry<String, IncrementalAnalysis> e :
+                     analyses.entrySet()) {
+                out.print(e.getKey() + ": ");
+                synchronized (e.getValue()) {
+                    e.getValue().printStats(out);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the header "name n" followed by the n lines of text to out.
+     */
+    private static void printSection(String name, String text,
+                                     PrintStream out) {
+        String[] lines = text.length() == 0 ? new String[0]
+                                            : text.split("\r?\n", -1);
+        int n = lines.length;
+        if (n > 0 && lines[n-1].length() == 0) {
+            n--;  // the text ended with a newline
+        }
+        out.println(name + " " + n);
+        for (int i = 0; i < n; i++) {
+            out.println(lines[i]);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * DeclHasher
+ *
+ * A visitor that computes a 64-bit FNV-1a hash of a declaration as it was
+ * written: the kind of every node, in the order of the source, and the
+ * identifiers and literals it holds.  Unlike unparse, it does not depend
+ * on what name analysis found, so a declaration hashes the same before and
+ * after it is analysed.
+ *
+ * Along with the hash, the same walk computes a check: a second 64-bit
+ * hash, made another way, for telling apart the declarations whose hashes
+ * match without keeping or rebuilding their text.
+ */
+class DeclHasher extends ASTVisitor<Void> {
+    private static final long OFFSET = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    // for the check, the constants of SplitMix64
+    private static final long GOLDEN = 0x9e3779b97f4a7c15L;
+    private static final long MIX = 0xbf58476d1ce4e5b9L;
+
+    private long hash = OFFSET;
+    private long check = 0;
+
+    private DeclHasher() {
+    }
+
+    /**
+     * Returns a DeclHasher that has hashed node as it was written.
+     */
+    static DeclHasher hash(ASTnode node) {
+        DeclHasher h = new DeclHasher();
+        node.accept(h);
+        return h;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    public long getCheck() {
+        return check;
+    }
+
+    public boolean defaultPreVisit(ASTnode n) {
+        mix(n.getClass().getName().hashCode());
+        return true;
+    }
+
+    public Void defaultPostVisit(ASTnode n) {
+        mix(')');
+        return null;
+    }
+
+    public boolean preVisit(IdNode n) {
+        defaultPreVisit(n);
+        word(n.getInternedName().getText());
+        return true;
+    }
+
+    public boolean preVisit(IntLitNode n) {
+        defaultPreVisit(n);
+        mix(n.getIntVal());
+        return true;
+    }
+
+    public boolean preVisit(StringLitNode n) {
+        defaultPreVisit(n);
+        word(n.getStrVal());
+        return true;
+    }
+
+    // the length first, so that a word cannot be taken for nodes
+    private void word(String s) {
+        mix(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            mix(s.charAt(i));
+        }
+    }
+
+    private void mix(int x) {
+        hash = (hash ^ x) * PRIME;
+        check = Long.rotateLeft(check ^ ((x + 1L) * GOLDEN), 31) * MIX;
+    }
+}
@@ -1,28 +1,256 @@
+import java.io.*;
+import java.util.*;
+
 /**
  * ErrMsg
  *
  * This class is used to generate warning and fatal error messages.
+ *
+ * Every thread has its own error state, so that several files can be
+ * compiled at the same time, each on its own thread, without mixing up
+ * their messages or their fatal error flags.
+ *
+ * A message is not printed when it is reported.  Its position, its code
+ * (one of the constants below) and its argument, if it has one, are kept
+ * in a few int arrays, and all the messages kept since the last flush are
+ * printed, in the order they were reported, by flush(), with a single
+ * write.  A message reported again at the same position is kept only once.
+ * The arrays belong to the thread and are reused by all its compilations.
  */
 class ErrMsg {
-    static boolean fatal = false;
+    // the codes of the messages
+    static final int UNDECLAIRED = 0;
+    static final int UNDECLARED = 1;
+    static final int MULTIPLY_DECLARED = 2;
+    static final int VOID_NON_FUNCTION = 3;
+    static final int BAD_STRUCT_TYPE = 4;
+    static final int DOT_ACCESS_NON_STRUCT = 5;
+    static final int BAD_STRUCT_FIELD = 6;
+    static final int SYNTAX_ERROR = 7;
+    static final int SYNTAX_ERROR_AT_EOF = 8;
+    static final int ILLEGAL_CHAR = 9;
+    static final int UNTERMINATED_STRING = 10;
+    static final int BAD_ESCAPE = 11;
+    static final int UNTERMINATED_BAD_ESCAPE = 12;
+    static final int INT_TOO_LARGE = 13;
+
+    // the text of each message, indexed by its code; the argument of a
+    // message, a character, follows its text
+    private static final String[] TEXT = {
+        "Undeclaired identifier",
+        "Undeclared identifier",
+        "Multiply declared identifier",
+        "Non-fuction declared void",
+        "Invalid name of struct type",
+        "Dot-access of non-struct type",
+        "Invalid struct field name",
+        "Syntax error",
+        "Syntax error at end of file",
+        "illegal character ignored: ",
+        "unterminated string literal ignored",
+        "string literal with bad escaped character ignored",
+        "unterminated string literal with bad escaped character ignored",
+        "integer literal too large; using max value"
+    };
+
+    private static final int NO_ARG = -1;
+    private static final int FATAL = 0;
+    private static final int WARNING = 1;
+
+    // the error state of the compilation running on the current thread
+    private static final ThreadLocal<ErrMsg> current =
+        new ThreadLocal<ErrMsg>() {
+            protected ErrMsg initialValue() {
+                return new ErrMsg();
+            }
+        };
+
+    private PrintStream err = System.err;  // where messages are printed
+    private int fatalCount;    // number of fatal errors reported
+    private int warnCount;     // number of warnings reported
+    private int duplicates;    // number of messages reported again
+
+    // the messages kept, one column per message
+    private int[] lines = new int[16];
+    private int[] chars = new int[16];
+    private int[] codes = new int[16];    // code << 1 | FATAL or WARNING
+    private int[] args = new int[16];
+    private int size;          // number of messages kept
+    private int printed;       // number of them printed so far
+
+    // open addressing hash table of the messages kept, by position, code
+    // and argument; holds the index of a message plus one, or 0
+    private int[] table = new int[32];
+
+    // where flush() renders the messages
+    private StringBuilder text = new StringBuilder();
+
+    private ErrMsg() {
+    }
+
     /**
-     * Generates a fatal error message.
+     * Starts a new compilation on the current thread: clears the fatal error
+     * count and prints all following messages to System.err.
+     */
+    static void reset() {
+        reset(System.err);
+    }
+
+    /**
+     * Starts a new compilation on the current thread: clears the fatal error
+     * count and prints all following messages to err.  Messages of the last
+     * compilation that were not printed yet are printed first.
+     */
+    static void reset(PrintStream err) {
+        ErrMsg e = current.get();
+        e.print();
+        e.err = err;
+        e.fatalCount = 0;
+        e.warnCount = 0;
+        e.duplicates = 0;
+        e.size = 0;
+        e.printed = 0;
+        Arrays.fill(e.table, 0);
+    }
+
+    /**
+     * Prints the messages reported on the current thread that were not
+     * printed yet.
+     */
+    static void flush() {
+        current.get().print();
+    }
+
+    /**
+     * Returns true iff a fatal error has been reported since the last reset
+     * on the current thread.
+     */
+    static boolean hasFatal() {
+        return current.get().fatalCount > 0;
+    }
+
+    /**
+     * Returns the number of fatal errors reported since the last reset on
+     * the current thread, counting those reported again.
+     */
+    static int fatalCount() {
+        return current.get().fatalCount;
+    }
+
+    /**
+     * Returns the number of warnings reported since the last reset on the
+     * current thread, counting those reported again.
+     */
+    static int warnCount() {
+        return current.get().warnCount;
+    }
+
+    /**
+     * Returns the number of messages reported since the last reset on the
+     * current thread that were not kept, having been reported already.
+     */
+    static int duplicateCount() {
+        return current.get().duplicates;
+    }
+
+    /**
+     * Reports a fatal error.
      * @param lineNum line number for error location
      * @param charNum character number (i.e., column) for error location
-     * @param msg associated message for error
+     * @param code the code of the message
      */
-    static void fatal(int lineNum, int charNum, String msg) {
-        System.err.println(lineNum + ":" + charNum + " ***ERROR*** " + msg);
-        fatal = true;
+    static void fatal(int lineNum, int charNum, int code) {
+        ErrMsg e = current.get();
+        e.fatalCount++;
+        e.add(lineNum, charNum, code << 1 | FATAL, NO_ARG);
     }
 
     /**
-     * Generates a warning message.
+     * Reports a fatal error whose message is followed by the character arg.
+     */
+    static void fatal(int lineNum, int charNum, int code, char arg) {
+        ErrMsg e = current.get();
+        e.fatalCount++;
+        e.add(lineNum, charNum, code << 1 | FATAL, arg);
+    }
+
+    /**
+     * Reports a warning.
      * @param lineNum line number for warning location
      * @param charNum character number (i.e., column) for warning location
-     * @param msg associated message for warning
+     * @param code the code of the message
      */
-    static void warn(int lineNum, int charNum, String msg) {
-        System.err.println(lineNum + ":" + charNum + " ***WARNING*** " + msg);
+    static void warn(int lineNum, int charNum, int code) {
+        ErrMsg e = current.get();
+        e.warnCount++;
+        e.add(lineNum, charNum, code << 1 | WARNING, NO_ARG);
+    }
+
+    // keeps a message, unless it is kept already
+    private void add(int line, int ch, int code, int arg) {
+        int mask = table.length - 1;
+        int h = hash(line, ch, code, arg) & mask;
+        for (int i; (i = table[h] - 1) >= 0; h = (h + 1) & mask) {
+            if (lines[i] == line && chars[i] == ch && codes[i] == code &&
+                args[i] == arg) {
+                duplicates++;
+                return;
+            }
+        }
+        if (size == lines.length) {
+            lines = Arrays.copyOf(lines, 2 * size);
+            chars = Arrays.copyOf(chars, 2 * size);
+            codes = Arrays.copyOf(codes, 2 * size);
+            args = Arrays.copyOf(args, 2 * size);
+        }
+        lines[size] = line;
+        chars[size] = ch;
+        codes[size] = code;
+        args[size] = arg;
+        size++;
+        table[h] = size;
+        // keep the table at most half full
+        if (2 * size > table.length) {
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        table = new int[2 * table.length];
+        int mask = table.length - 1;
+        for (int i = 0; i < size; i++) {
+            int h = hash(lines[i], chars[i], codes[i], args[i]) & mask;
+            while (table[h] != 0) {
+                h = (h + 1) & mask;
+            }
+            table[h] = i + 1;
+        }
+    }
+
+    private static int hash(int line, int ch, int code, int arg) {
+        int h = ((line * 31 + ch) * 31 + code) * 31 + arg;
+        return h ^ (h >>> 16);
+    }
+
+    // prints the messages kept since the last print
+    private void print() {
+        if (printed == size) {
+            return;
+        }
+        text.setLength(0);
+        String newline = System.lineSeparator();
+        for (int i = printed; i < size; i++) {
+            text.append(lines[i]).append(':').append(chars[i])
+                .append((codes[i] & 1) == FATAL ? " ***ERROR*** "
+                                                : " ***WARNING*** ")
+                .append(TEXT[codes[i] >> 1]);
+            if (args[i] != NO_ARG) {
+                text.append((char)args[i]);
+            }
+            text.append(newline);
+        }
+        printed = size;
+        err.print(text);
+        err.flush();
     }
 }
@@ -0,0 +1,55 @@
+import java.io.*;
+
+/**
+ * ErrorBench
+ *
+ * Measures the cost of reporting errors, by compiling a generated cimple
+ * program in which almost every statement has one:
+ *
+ *    java ErrorBench [errors] [runs]
+ *
+ * The program is made of functions that assign to and use undeclared
+ * names, so the name analysis reports about the given number of errors.
+ * The messages are written to a temporary file through a PrintStream made
+ * the way System.err is, which flushes on every newline, so each run
+ * includes the time taken to write them.
+ */
+public class ErrorBench {
+    public static void main(String[] args) throws Exception {
+        int errors = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        String src = program(errors);
+        File file = File.createTempFile("ErrorBench", ".err");
+        file.deleteOnExit();
+        PrintStream ignored = P4.nullStream();
+        System.out.println("input: " + src.length() + " chars");
+        for (int run = 1; run <= runs; run++) {
+            try (PrintStream err = new PrintStream(new BufferedOutputStream(
+                         new FileOutputStream(file), 8192), true)) {
+                FrontEndBench.Meter m = new FrontEndBench.Meter();
+                P4.compile(new Yylex(new StringReader(src)),
+                           P4.unparseWriter(), ignored, err, false, null);
+                m.report("compile " + run, ErrMsg.fatalCount() + " errors, " +
+                         file.length() / 1024 + " KB of messages");
+            }
+        }
+    }
+
+    /**
+     * Returns a cimple program with about errors undeclared names.
+     */
+    private static String program(int errors) {
+        StringBuilder b = new StringBuilder();
+        int n = 0;
+        for (int f = 0; n < errors; f++) {
+            b.append("void f").append(f).append("() {\n");
+            for (int i = 0; i < 100 && n < errors; i++, n += 2) {
+                b.append("    a").append(i).append(" = b").append(i)
+                 .append(";\n");
+            }
+            b.append("}\n");
+        }
+        return b.toString();
+    }
+}
@@ -0,0 +1,168 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * FlatSymTable
+ *
+ * A symbol table with the same behavior as SymTable, but that keeps all of
+ * its scopes in one table from a name to the stack of its bindings,
+ * innermost first.  The table is an array indexed by the ids of the names
+ * interned in a NamePool, so looking up a Name is one array access however
+ * deeply the scopes are nested, and entering a scope allocates nothing.
+ * Names given as Strings are first looked up in the pool.  Every binding is
+ * also appended to a log; leaving a scope undoes exactly the bindings that
+ * the scope added, from the end of the log.
+ */
+public class FlatSymTable extends SymTable {
+    // one binding of a name, in one scope
+    private static class Binding {
+        final Name name;
+        final SemSym sym;
+        final int depth;         // the scope: 1 for the outermost
+        final Binding shadowed;  // the binding of name in an outer scope
+
+        Binding(Name name, SemSym sym, int depth, Binding shadowed) {
+            this.name = name;
+            this.sym = sym;
+            this.depth = depth;
+            this.shadowed = shadowed;
+        }
+    }
+
+    private NamePool names;
+    // the innermost binding of each name, by id
+    private Binding[] table = new Binding[64];
+    private ArrayList<Binding> log = new ArrayList<Binding>();
+    private int[] marks = new int[16];  // log size when each scope began
+    private int depth;                  // number of scopes
+    // if not null, lookupGlobal puts here every symbol it finds in the
+    // outermost (global) scope
+    private Map<String, SemSym> globalUses;
+
+    /**
+     * Creates a symbol table for the names of the given pool (which may
+     * grow while the table is in use).
+     */
+    public FlatSymTable(NamePool names) {
+        this.names = names;
+        addScope();
+    }
+
+    public FlatSymTable() {
+        this(new NamePool());
+    }
+
+    public void addDecl(String name, SemSym sym)
+    throws DuplicateSymException, EmptySymTableException {
+        if (name == null)
+            throw new NullPointerException();
+        addDecl(names.intern(name), sym);
+    }
+
+    public void addDecl(Name name, SemSym sym)
+    throws DuplicateSymException, EmptySymTableException {
+        if (name == null || sym == null)
+            throw new NullPointerException();
+
+        if (depth == 0)
+            throw new EmptySymTableException();
+
+        name = own(name);
+        Binding b = binding(name);
+        if (b != null && b.depth == depth)
+            throw new DuplicateSymException();
+
+        b = new Binding(name, sym, depth, b);
+        table[name.getId()] = b;
+        log.add(b);
+    }
+
+    public void addScope() {
+        if (depth == marks.length)
+            marks = Arrays.copyOf(marks, 2 * depth);
+        marks[depth++] = log.size();
+    }
+
+    public SemSym lookupLocal(String name) {
+        Name n = names.lookup(name);
+        return n == null ? null : lookupLocal(n);
+    }
+
+    public SemSym lookupLocal(Name name) {
+        Binding b = binding(name);
+        if (b == null || b.depth != depth)
+            return null;
+        return b.sym;
+    }
+
+    public SemSym lookupGlobal(String name) {
+        Name n = names.lookup(name);
+        return n == null ? null : lookupGlobal(n);
+    }
+
+    public SemSym lookupGlobal(Name name) {
+        Binding b = binding(name);
+        if (b == null)
+            return null;
+        if (globalUses != null && b.depth == 1)
+            globalUses.put(name.getText(), b.sym);
+        return b.sym;
+    }
+
+    public void removeScope() throws EmptySymTableException {
+        if (depth == 0)
+            throw new EmptySymTableException();
+
+        int mark = marks[--depth];
+        for (int i = log.size() - 1; i >= mark; i--) {
+            Binding b = log.remove(i);
+            table[b.name.getId()] = b.shadowed;
+        }
+    }
+
+    public void recordGlobalUses(Map<String, SemSym> uses) {
+        globalUses = uses;
+    }
+
+    // name itself if it belongs to this table's pool, otherwise the Name
+    // with the same text in this table's pool
+    private Name own(Name name) {
+        int id = name.getId();
+        if (id < names.size() && names.get(id) == name)
+            return name;
+        return names.intern(name.getText());
+    }
+
+    // the innermost binding of name, null if none
+    private Binding binding(Name name) {
+        int id = name.getId();
+        if (id >= names.size() || names.get(id) != name) {
+            name = names.lookup(name.getText());
+            if (name == null)
+                return null;
+            id = name.getId();
+        }
+        if (id >= table.length)
+            table = Arrays.copyOf(table, Math.max(names.size(),
+                                                  2 * table.length));
+        return table[id];
+    }
+
+    /**
+     * Prints the scopes, innermost first, exactly as SymTable does.
+     */
+    public void print(PrintStream out) {
+        out.print("\nSym Table\n");
+        for (int d = depth - 1; d >= 0; d--) {
+            int end = d + 1 < depth ? marks[d + 1] : log.size();
+            // the same insertions as SymTable would have done, so that
+            // the map is printed in the same order
+            HashMap<String, SemSym> symTab = new HashMap<String, SemSym>();
+            for (int i = marks[d]; i < end; i++) {
+                symTab.put(log.get(i).name.getText(), log.get(i).sym);
+            }
+            out.println(symTab.toString());
+        }
+        out.println();
+    }
+}
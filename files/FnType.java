@@ -0,0 +1,25 @@
+/**
+ * FnType
+ *
+ * The type of a function: the types of its parameters and its return type.
+ * It is created once, when the function is declared.  Prints as its return
+ * type, as the symbol table has always printed functions.
+ */
+public class FnType extends Type {
+    private final Type[] paramTypes;
+    private final Type returnType;
+
+    public FnType(Type[] paramTypes, Type returnType) {
+        super(returnType.toString());
+        this.paramTypes = paramTypes;
+        this.returnType = returnType;
+    }
+
+    public Type[] getParamTypes() {
+        return paramTypes;
+    }
+
+    public Type getReturnType() {
+        return returnType;
+    }
+}
@@ -0,0 +1,71 @@
+import java.io.*;
+import java_cup.runtime.*;
+
+/**
+ * FormalsBench
+ *
+ * A stress test of the parser on functions with very long parameter
+ * lists:
+ *
+ *    java FormalsBench [parameters] [functions] [runs]
+ *
+ * The generated program declares the given number of functions, each with
+ * the given number of parameters.  The time taken and the memory allocated
+ * by parsing it are printed, with the deepest the parse stack got, which is
+ * sampled every time the parser asks for a token.
+ */
+public class FormalsBench {
+    public static void main(String[] args) throws Exception {
+        int params = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int fns = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        String src = program(params, fns);
+        System.out.println(fns + " functions of " + params + " parameters, " +
+                           src.length() + " chars");
+        TokenBuffer tokens = new TokenBuffer();
+        for (int run = 1; run <= runs; run++) {
+            ErrMsg.reset();
+            Yylex scanner = new Yylex(new StringReader(src));
+            tokens.clear();
+            scanner.scanInto(tokens);
+
+            FrontEndBench.Meter m = new FrontEndBench.Meter();
+            DepthParser p = new DepthParser(
+                new TokenStream(tokens, scanner.getNamePool()));
+            p.parse();
+            m.report("parse " + run, "stack depth " + p.maxDepth);
+        }
+    }
+
+    /**
+     * The parser, keeping track of the size of its stack.
+     */
+    private static class DepthParser extends parser {
+        int maxDepth;
+
+        DepthParser(Scanner s) {
+            super(s);
+        }
+
+        public Symbol scan() throws Exception {
+            maxDepth = Math.max(maxDepth, stack.size());
+            return super.scan();
+        }
+    }
+
+    private static String program(int params, int fns) {
+        StringBuilder b = new StringBuilder();
+        for (int f = 0; f < fns; f++) {
+            b.append("int f").append(f).append("(");
+            for (int i = 0; i < params; i++) {
+                if (i > 0) {
+                    b.append(", ");
+                }
+                b.append(i % 2 == 0 ? "int p" : "bool p").append(i);
+            }
+            b.append(") {\n    return p0;\n}\n");
+        }
+        return b.toString();
+    }
+}
@@ -0,0 +1,207 @@
+import java.io.*;
+import java.lang.management.*;
+import java.nio.file.*;
+import java.util.*;
+import java_cup.runtime.*;
+
+/**
+ * FrontEndBench
+ *
+ * Measures the time taken, and the memory allocated, by each phase of the
+ * front end on a large generated cimple program:
+ *
+ *    java FrontEndBench [kilobytes] [runs]
+ *
+ * The program is made of many copies of a function that declares locals
+ * in nested blocks and uses them, the globals and a struct; it has no
+ * errors, so every phase runs.  The phases are measured one after the
+ * other on the same input; the first runs warm up the JIT.  The program is
+ * unparsed into a temporary file both through a PrintWriter and through an
+ * UnparseWriter, and the two files are checked to be the same.  The
+ * tokens are parsed twice: with a new Symbol for each token and non
+ * terminal, then with Symbols reused from a PooledSymbolFactory.
+ */
+public class FrontEndBench {
+    public static void main(String[] args) throws Exception {
+        int kbytes = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        String src = program(kbytes * 1024);
+        for (int i = 0; i < unparsed.length; i++) {
+            unparsed[i] = File.createTempFile("FrontEndBench", ".out");
+            unparsed[i].deleteOnExit();
+        }
+        System.out.println("input: " + src.length() + " chars");
+        for (int run = 1; run <= runs; run++) {
+            System.out.println("run " + run);
+            run(src);
+        }
+    }
+
+    // reused by all the runs, as P4 reuses one of each per thread
+    private static TokenBuffer buffer = new TokenBuffer();
+    private static UnparseWriter writer = new UnparseWriter();
+    private static PooledSymbolFactory symbols = new PooledSymbolFactory();
+    // where the program is unparsed both ways
+    private static File[] unparsed = new File[2];
+
+    private static void run(String src) throws Exception {
+        ErrMsg.reset();
+
+        // scanning alone, one Symbol per token
+        Meter m = new Meter();
+        Yylex scanner = new Yylex(new StringReader(src));
+        int tokens = 0;
+        int ids = 0;
+        Symbol s;
+        while ((s = scanner.next_token()).sym != sym.EOF) {
+            tokens++;
+            if (s.sym == sym.ID) {
+                ids++;
+            }
+        }
+        m.report("scan", tokens + " tokens, " + ids + " identifiers, " +
+                 scanner.getNamePool().size() + " distinct names");
+
+        // scanning into a token buffer, as P4 does
+        m = new Meter();
+        scanner = new Yylex(new StringReader(src));
+        buffer.clear();
+        scanner.scanInto(buffer);
+        m.report("scan (buffer)", buffer.size() + " tokens");
+
+        // parsing the buffered tokens
+        long heap = usedHeap();
+        m = new Meter();
+        ProgramNode program = (ProgramNode)new parser(
+            new TokenStream(buffer, scanner.getNamePool())).parse().value;
+        m.report("parse", scanner.getNamePool().size() + " distinct names");
+        long ast = usedHeap() - heap;
+        int nodes = countNodes(program);
+        System.out.printf("  %-14s %9d nodes %10.1f KB retained  " +
+                          "%.1f bytes per node%n", "AST", nodes,
+                          ast / 1024.0, (double)ast / nodes);
+
+        // parsing them again with Symbols reused from a pool, as P4 does
+        m = new Meter();
+        new parser(new TokenStream(buffer, scanner.getNamePool(), symbols),
+                   symbols).parse();
+        m.report("parse (pool)", "");
+
+        m = new Meter();
+        program.nameAnalysis(new FlatSymTable(scanner.getNamePool()));
+        m.report("name analysis", ErrMsg.fatalCount() + " errors");
+
+        // unparsing to a file through a PrintWriter, as P4 used to
+        m = new Meter();
+        PrintWriter out = new PrintWriter(unparsed[0]);
+        program.unparse(out, 0);
+        out.close();
+        m.report("unparse", unparsed[0].length() / 1024 + " KB");
+
+        // unparsing into a reused buffer written with one channel write
+        m = new Meter();
+        writer.reset();
+        program.unparse(writer, 0);
+        try (FileOutputStream f = new FileOutputStream(unparsed[1])) {
+            writer.writeTo(f.getChannel());
+        }
+        m.report("unparse (buf)", unparsed[1].length() / 1024 + " KB");
+
+        if (!Arrays.equals(Files.readAllBytes(unparsed[0].toPath()),
+                           Files.readAllBytes(unparsed[1].toPath()))) {
+            throw new IllegalStateException("the unparsed files differ");
+        }
+    }
+
+    /**
+     * Returns the heap in use after a garbage collection.
+     */
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    /**
+     * Returns the number of nodes of the tree rooted at root.
+     */
+    static int countNodes(ASTnode root) {
+        final int[] nodes = new int[1];
+        root.accept(new ASTVisitor<Void>() {
+            public boolean defaultPreVisit(ASTnode n) {
+                nodes[0]++;
+                return true;
+            }
+        });
+        return nodes[0];
+    }
+
+    /**
+     * Returns an error-free cimple program of about size characters.
+     */
+    static String program(int size) {
+        StringBuilder b = new StringBuilder(size + 1024);
+        b.append("struct Point {\n    int x;\n    int y;\n    bool seen;\n};\n");
+        int n = 0;
+        while (b.length() < size) {
+            b.append("int total").append(n).append(";\n");
+            b.append("int step").append(n).append("(int count, bool flag) {\n");
+            b.append("    int i;\n    int sum;\n    struct Point p;\n");
+            b.append("    i = 0;\n    sum = total").append(n).append(";\n");
+            b.append("    while (i < count) {\n");
+            b.append("        int square;\n");
+            b.append("        square = i * i;\n");
+            b.append("        if (flag && square > sum) {\n");
+            b.append("            bool done;\n");
+            b.append("            p.x = square - sum;\n");
+            b.append("            p.seen = true;\n");
+            b.append("            done = p.seen || flag;\n");
+            b.append("            cout << \"step\";\n");
+            b.append("        }\n");
+            b.append("        else {\n");
+            b.append("            p.y = p.y + (sum / 2);\n");
+            b.append("        }\n");
+            b.append("        sum = sum + square;\n");
+            b.append("        i++;\n");
+            b.append("    }\n");
+            if (n > 0) {
+                b.append("    sum = sum + step").append(n - 1)
+                 .append("(count - 1, !flag);\n");
+            }
+            b.append("    total").append(n).append(" = sum;\n");
+            b.append("    return sum;\n}\n");
+            n++;
+        }
+        b.append("int main() {\n    cout << step").append(n - 1)
+         .append("(10, true);\n}\n");
+        return b.toString();
+    }
+
+    /**
+     * Measures the time and the memory allocated by the current thread
+     * since it was created.
+     */
+    static class Meter {
+        private static final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean)
+                ManagementFactory.getThreadMXBean();
+
+        private long start = System.nanoTime();
+        private long allocated = allocated();
+
+        private static long allocated() {
+            return threads.getThreadAllocatedBytes(
+                       Thread.currentThread().getId());
+        }
+
+        void report(String phase, String what) {
+            long time = System.nanoTime() - start;
+            long bytes = allocated() - allocated;
+            System.out.printf("  %-14s %9.3f ms %10.1f KB allocated  %s%n",
+                              phase, time / 1e6, bytes / 1024.0, what);
+        }
+    }
+}
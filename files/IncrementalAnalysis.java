@@ -0,0 +1,209 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * IncrementalAnalysis
+ *
+ * Name analysis of successive versions of one program that only analyses
+ * the top-level declarations that changed, and those whose meaning may have
+ * changed because of them.
+ *
+ * Every top-level declaration is identified by a hash of its text (see
+ * DeclHasher); when the hashes match, so must the second hash that
+ * DeclHasher computes to check them.
+ * A declaration of the new version whose text is the same as that of a
+ * declaration of the previous version is not analysed again when
+ *   - no errors were reported when it was last analysed,
+ *   - its name is not already declared in the global scope, and
+ *   - every global name it used is still bound to the very same symbol.
+ * The previously analysed declaration then takes the place of the new one
+ * in the AST, with the positions of the new one, and its symbol is put
+ * back into the global scope as it was.
+ * Any other declaration is analysed as usual.  Since a declaration that is
+ * analysed again gets a new symbol, the declarations that use it are
+ * analysed again too, and so on.
+ */
+class IncrementalAnalysis {
+    // one per top-level declaration of the last version analysed
+    private List<Entry> previous = new ArrayList<Entry>();
+
+    private int lastAnalysed;   // for the last version analysed
+    private int lastReused;
+    private long totalAnalysed; // for all the versions analysed
+    private long totalReused;
+
+    /**
+     * What is remembered about one analysed top-level declaration.
+     */
+    private static class Entry {
+        long hash;
+        long check;                  // the check of DeclHasher
+        DeclNode decl;
+        SemSym sym;                  // what it declared, null if in error
+        Map<String, SemSym> uses;    // the global symbols it used
+
+        Entry(DeclHasher h, DeclNode decl) {
+            this.hash = h.getHash();
+            this.check = h.getCheck();
+            this.decl = decl;
+        }
+    }
+
+    /**
+     * Does the name analysis of program, a new version of the program
+     * analysed last time, using symTab.
+     */
+    public void nameAnalysis(ProgramNode program, SymTable symTab) {
+        // the previous declarations, by hash, in order
+        HashMap<Long, LinkedList<Entry>> old =
+            new HashMap<Long, LinkedList<Entry>>();
+        for (Entry e : previous) {
+            LinkedList<Entry> same = old.get(e.hash);
+            if (same == null) {
+                same = new LinkedList<Entry>();
+                old.put(e.hash, same);
+            }
+            same.addLast(e);
+        }
+
+        DeclNode[] decls = program.getDeclList().getDecls();
+        List<Entry> current = new ArrayList<Entry>(decls.length);
+        lastAnalysed = 0;
+        lastReused = 0;
+        for (int i = 0; i < decls.length; i++) {
+            DeclNode decl = decls[i];
+            DeclHasher hash = DeclHasher.hash(decl);
+            LinkedList<Entry> same = old.get(hash.getHash());
+            Entry e = same == null ? null : same.peekFirst();
+            if (e != null && e.check == hash.getCheck()) {
+                same.pollFirst();
+            } else {
+                e = null;   // no such declaration, or only the hashes match
+            }
+            if (e != null && canReuse(e, symTab)) {
+                try {
+                    symTab.addDecl(e.decl.getName(), e.sym);
+                } catch (DuplicateSymException ex) {
+                    // can't happen: canReuse checked it
+                } catch (EmptySymTableException ex) {
+                }
+                movePositions(decl, e.decl);
+                decls[i] = e.decl;
+                lastReused++;
+            } else {
+                e = analyse(hash, decl, symTab);
+                lastAnalysed++;
+            }
+            current.add(e);
+        }
+        previous = current;
+        totalAnalysed += lastAnalysed;
+        totalReused += lastReused;
+    }
+
+    /**
+     * Prints how many declarations were analysed and how many were reused,
+     * for the last version and for all of them.
+     */
+    public void printStats(PrintStream out) {
+        out.println("declarations analysed " + lastAnalysed + ", reused " +
+                    lastReused + " (all versions: analysed " + totalAnalysed +
+                    ", reused " + totalReused + ")");
+    }
+
+    /**
+     * Returns true iff the declaration analysed before as e may be used
+     * again in the global scope of symTab as it is now.
+     */
+    private static boolean canReuse(Entry e, SymTable symTab) {
+        if (e.sym == null || symTab.lookupLocal(e.decl.getName()) != null) {
+            return false;
+        }
+        for (Map.Entry<String, SemSym> use : e.uses.entrySet()) {
+            if (symTab.lookupGlobal(use.getKey()) != use.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gives the identifiers and literals of old, a declaration written the
+     * same as decl, the positions of those of decl, so that errors reported
+     * on old later point where decl is.
+     */
+    private static void movePositions(DeclNode decl, DeclNode old) {
+        final List<ExpNode> leaves = new ArrayList<ExpNode>();
+        decl.accept(new ASTVisitor<Void>() {
+            public boolean preVisit(IdNode n) {
+                leaves.add(n);
+                return true;
+            }
+            public boolean preVisit(IntLitNode n) {
+                leaves.add(n);
+                return true;
+            }
+            public boolean preVisit(StringLitNode n) {
+                leaves.add(n);
+                return true;
+            }
+            public boolean preVisit(TrueNode n) {
+                leaves.add(n);
+                return true;
+            }
+            public boolean preVisit(FalseNode n) {
+                leaves.add(n);
+                return true;
+            }
+        });
+        old.accept(new ASTVisitor<Void>() {
+            private int next = 0;
+            public boolean preVisit(IdNode n) {
+                n.setPosition((IdNode)leaves.get(next++));
+                return true;
+            }
+            public boolean preVisit(IntLitNode n) {
+                n.setPosition((IntLitNode)leaves.get(next++));
+                return true;
+            }
+            public boolean preVisit(StringLitNode n) {
+                n.setPosition((StringLitNode)leaves.get(next++));
+                return true;
+            }
+            public boolean preVisit(TrueNode n) {
+                n.setPosition((TrueNode)leaves.get(next++));
+                return true;
+            }
+            public boolean preVisit(FalseNode n) {
+                n.setPosition((FalseNode)leaves.get(next++));
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Analyses the top-level declaration decl, recording what it declares
+     * and which global symbols it uses.
+     */
+    private static Entry analyse(DeclHasher hash, DeclNode decl,
+                                 SymTable symTab) {
+        Entry e = new Entry(hash, decl);
+        String name = decl.getName();
+        boolean declared = symTab.lookupLocal(name) != null;
+        int errors = ErrMsg.fatalCount();
+
+        e.uses = new HashMap<String, SemSym>();
+        symTab.recordGlobalUses(e.uses);
+        decl.nameAnalysis(symTab);
+        symTab.recordGlobalUses(null);
+
+        if (!declared && ErrMsg.fatalCount() == errors) {
+            e.sym = symTab.lookupLocal(name);
+            // a function that calls itself does not depend on itself
+            if (e.sym != null && e.uses.get(name) == e.sym) {
+                e.uses.remove(name);
+            }
+        }
+        return e;
+    }
+}
@@ -0,0 +1,52 @@
+import java.io.*;
+
+/**
+ * IncrementalCheck
+ *
+ * Compiles the given files as successive versions of one program, the way
+ * an incremental compile server would, and checks each of them against a
+ * fresh compile of the same file:
+ *
+ *    java IncrementalCheck version1.cf version2.cf ...
+ *
+ * For every version it prints a header "== name ==", the messages of the
+ * incremental compile, and how many declarations were analysed and reused.
+ * When the messages or the unparsed program differ from those of the fresh
+ * compile, it says so, and exits with status 1 after the last version.
+ */
+public class IncrementalCheck {
+    public static void main(String[] args) throws IOException {
+        IncrementalAnalysis incremental = new IncrementalAnalysis();
+        PrintStream ignored = P4.nullStream();
+        boolean same = true;
+
+        for (String name : args) {
+            ByteArrayOutputStream err = new ByteArrayOutputStream();
+            UnparseWriter unparse = new UnparseWriter();
+            P4.compile(SourceFile.read(name).scanner(), unparse, ignored,
+                       new PrintStream(err, true), false, incremental);
+
+            ByteArrayOutputStream freshErr = new ByteArrayOutputStream();
+            UnparseWriter freshUnparse = new UnparseWriter();
+            P4.compile(SourceFile.read(name).scanner(), freshUnparse, ignored,
+                       new PrintStream(freshErr, true), false, null);
+
+            System.out.println("== " + name + " ==");
+            System.out.print(err.toString());
+            incremental.printStats(System.out);
+            if (!err.toString().equals(freshErr.toString())) {
+                System.out.println("messages differ from a fresh compile:");
+                System.out.print(freshErr.toString());
+                same = false;
+            }
+            if (!unparse.toString().equals(freshUnparse.toString())) {
+                System.out.println("unparsed program differs from a fresh " +
+                                   "compile");
+                same = false;
+            }
+        }
+        if (!same) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+import java.io.*;
+
+/**
+ * InputBench
+ *
+ * Compares the two ways the scanner can get its input: through a
+ * FileReader, which it reads into a small buffer that it refills, copies
+ * down and doubles as it goes, and through a SourceFile, which maps and
+ * decodes the whole file once and is scanned in place.
+ *
+ *    java InputBench [megabytes] [runs]
+ *
+ * A generated program of the given size (see FrontEndBench) is written to
+ * a temporary file, which is then scanned into a TokenBuffer both ways.
+ * Each time includes opening and reading the file.
+ */
+public class InputBench {
+    public static void main(String[] args) throws Exception {
+        int mbytes = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        File file = File.createTempFile("InputBench", ".cf");
+        file.deleteOnExit();
+        try (Writer w = new FileWriter(file)) {
+            w.write(FrontEndBench.program(mbytes * 1024 * 1024));
+        }
+        double size = file.length() / (1024.0 * 1024.0);
+        System.out.printf("input: %.1f MB%n", size);
+
+        TokenBuffer tokens = new TokenBuffer();
+        for (int run = 1; run <= runs; run++) {
+            System.out.println("run " + run);
+
+            FrontEndBench.Meter m = new FrontEndBench.Meter();
+            long start = System.nanoTime();
+            try (Reader in = new FileReader(file)) {
+                tokens.clear();
+                new Yylex(in).scanInto(tokens);
+            }
+            report(m, "FileReader", size, System.nanoTime() - start, tokens);
+
+            m = new FrontEndBench.Meter();
+            start = System.nanoTime();
+            tokens.clear();
+            SourceFile.read(file.getPath()).scanner().scanInto(tokens);
+            report(m, "SourceFile", size, System.nanoTime() - start, tokens);
+        }
+    }
+
+    private static void report(FrontEndBench.Meter m, String how,
+                               double size, long time, TokenBuffer tokens) {
+        m.report(how, String.format("%.1f MB/s, %d tokens",
+                                    size / (time / 1e9), tokens.size()));
+    }
+}
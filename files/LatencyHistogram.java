@@ -0,0 +1,78 @@
+import java.io.*;
+
+/**
+ * LatencyHistogram
+ *
+ * Counts request latencies in buckets whose bounds are powers of two
+ * microseconds, so that recording a latency costs a few instructions and
+ * no allocation however many are recorded.  Bucket i holds the latencies
+ * in [2^(i-1), 2^i) microseconds; bucket 0 holds those under 1 microsecond.
+ * All methods are synchronized, so one histogram may be shared by several
+ * threads.
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 40;
+
+    private long[] counts = new long[BUCKETS];
+    private long count;
+    private long total;   // in nanoseconds
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * Records one latency, given in nanoseconds.
+     */
+    public synchronized void record(long nanos) {
+        long micros = nanos / 1000;
+        int bucket = 64 - Long.numberOfLeadingZeros(micros);
+        counts[Math.min(bucket, BUCKETS - 1)]++;
+        count++;
+        total += nanos;
+        min = Math.min(min, nanos);
+        max = Math.max(max, nanos);
+    }
+
+    /**
+     * Returns the number of latencies recorded.
+     */
+    public synchronized long count() {
+        return count;
+    }
+
+    /**
+     * Returns an upper bound, in microseconds, of the given percentile
+     * (0 to 100) of the latencies recorded: the upper bound of the bucket
+     * that holds it.
+     */
+    public synchronized long percentile(double p) {
+        long rank = (long)Math.ceil(count * p / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return 1L << i;
+            }
+        }
+        return 1L << (BUCKETS - 1);
+    }
+
+    /**
+     * Prints a summary line followed by one line for every non-empty bucket.
+     */
+    public synchronized void print(PrintStream out) {
+        if (count == 0) {
+            out.println("requests 0");
+            return;
+        }
+        out.printf("requests %d  mean %.3f ms  min %.3f ms  max %.3f ms  " +
+                   "p50 <%d us  p90 <%d us  p99 <%d us%n",
+                   count, total / 1e6 / count, min / 1e6, max / 1e6,
+                   percentile(50), percentile(90), percentile(99));
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] > 0) {
+                long low = i == 0 ? 0 : 1L << (i - 1);
+                out.printf("%10d - %-10d us  %d%n", low, 1L << i, counts[i]);
+            }
+        }
+    }
+}
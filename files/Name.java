@@ -0,0 +1,33 @@
+/**
+ * Name
+ *
+ * An identifier interned by a NamePool.  A pool hands out exactly one Name
+ * for each distinct identifier, so Names can be compared with ==, and each
+ * of them has a small id, dense from 0, that symbol tables can use as an
+ * array index instead of hashing the text.
+ */
+public final class Name {
+    final String text;
+    final int id;
+
+    Name(String text, int id) {
+        this.text = text;
+        this.id = id;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int hashCode() {
+        return text.hashCode();
+    }
+
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,127 @@
+import java.util.*;
+
+/**
+ * NamePool
+ *
+ * Interns the identifiers of one compilation.  The scanner interns every
+ * identifier straight from its character buffer, so a String is allocated
+ * only the first time an identifier is seen, not every time it occurs; the
+ * AST and the symbol table then share that String and its Name.
+ *
+ * The pool is an open-addressing hash table of Names, using the same hash
+ * function as String.hashCode, so that the hash of each String is computed
+ * once and then cached by the String itself.
+ */
+public class NamePool {
+    private Name[] table = new Name[256];   // size is a power of 2
+    private Name[] byId = new Name[128];
+    private int size;
+
+    /**
+     * Returns the Name of the identifier buf[off..off+len), creating it if
+     * it is the first occurrence of that identifier.
+     */
+    public Name intern(char[] buf, int off, int len) {
+        int h = 0;
+        for (int i = off; i < off + len; i++) {
+            h = 31 * h + buf[i];
+        }
+        int mask = table.length - 1;
+        int slot = mix(h) & mask;
+        Name n;
+        while ((n = table[slot]) != null) {
+            if (n.text.length() == len && n.text.hashCode() == h &&
+                matches(n.text, buf, off, len)) {
+                return n;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return add(new String(buf, off, len), slot);
+    }
+
+    /**
+     * Returns the Name of text, creating it if it was not yet in the pool.
+     */
+    public Name intern(String text) {
+        int slot = find(text);
+        Name n = table[slot];
+        return n != null ? n : add(text, slot);
+    }
+
+    /**
+     * Returns the Name of text, or null if it is not in the pool.
+     */
+    public Name lookup(String text) {
+        return table[find(text)];
+    }
+
+    /**
+     * Returns the Name with the given id.
+     */
+    public Name get(int id) {
+        return byId[id];
+    }
+
+    /**
+     * Returns the number of distinct names in the pool; their ids are 0 to
+     * size()-1.
+     */
+    public int size() {
+        return size;
+    }
+
+    // the slot of text in table, or the empty slot where it should go
+    private int find(String text) {
+        int mask = table.length - 1;
+        int slot = mix(text.hashCode()) & mask;
+        Name n;
+        while ((n = table[slot]) != null && !n.text.equals(text)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private Name add(String text, int slot) {
+        Name n = new Name(text, size);
+        table[slot] = n;
+        if (size == byId.length) {
+            byId = Arrays.copyOf(byId, 2 * size);
+        }
+        byId[size++] = n;
+        if (2 * size > table.length) {
+            rehash();
+        }
+        return n;
+    }
+
+    private void rehash() {
+        Name[] old = table;
+        table = new Name[2 * old.length];
+        int mask = table.length - 1;
+        for (Name n : old) {
+            if (n != null) {
+                int slot = mix(n.text.hashCode()) & mask;
+                while (table[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = n;
+            }
+        }
+    }
+
+    // spreads the bits of String.hashCode, whose low bits are poor for
+    // short identifiers
+    private static int mix(int h) {
+        h *= 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(String text, char[] buf, int off, int len) {
+        for (int i = 0; i < len; i++) {
+            if (text.charAt(i) != buf[off + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
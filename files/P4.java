@@ -1,4 +1,6 @@
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 import java_cup.runtime.*;
 
 /**
@@ -8,14 +10,95 @@ import java_cup.runtime.*;
  *    1. the file to be parsed
  *    2. the output file into which the AST built by the parser should be
  *       unparsed
- * The program opens the two files, creates a scanner and a parser, and
- * calls the parser.  If the parse is successful, the AST is unparsed.
+ * The program reads the input file (see SourceFile), opens the output file,
+ * creates a scanner and a parser, and calls the parser.  If the parse is
+ * successful, the AST is unparsed.
+ *
+ * Alternatively, the program can be run in batch mode:
+ *
+ *    java P4 -batch [-j threads] file1.cf file2.cf ... @manifest ...
+ *
+ * Every argument is either a file to be parsed or, when it starts with '@',
+ * a manifest file that lists one file to be parsed per line (blank lines
+ * and lines starting with '#' are ignored).  Each file is compiled in this
+ * JVM and unparsed into a file with the same name and the extension ".out";
+ * a file whose output would overwrite an input file, or the output of a
+ * file given before it, is reported and not compiled.
+ * The output of every file is printed after a "== file ==" line, and each
+ * of its messages after "file: ".  With -j, up to that many files are
+ * compiled at the same time; the output and messages of every file are
+ * still printed in the order the files were given, so the result is the
+ * same as that of a serial run.  The time taken
+ * by each file and a throughput summary are printed at the end.
+ *
+ * Finally, the program can be run as a compile server (see CompileServer):
+ *
+ *    java P4 -server [-incremental] [port]
+ *
+ * Without a port, requests are read from standard input; with one, clients
+ * connect to that port on the loopback interface.  With -incremental, the
+ * server only analyses again the top-level declarations of a file that
+ * changed since it last compiled it (see IncrementalAnalysis).
  */
 
 public class P4 {
     public static void main(String[] args)
         throws IOException // may be thrown by the scanner
     {
+        if (args.length > 0 && args[0].equals("-server")) {
+            int next = 1;
+            boolean incremental = false;
+            if (args.length > 1 && args[1].equals("-incremental")) {
+                incremental = true;
+                next = 2;
+            }
+            CompileServer server = new CompileServer(incremental);
+            if (args.length == next) {
+                server.serve(new BufferedReader(new InputStreamReader(
+                                 System.in)), System.out);
+            } else {
+                int port = -1;
+                try {
+                    port = Integer.parseInt(args[next]);
+                } catch (NumberFormatException ex) {
+                }
+                if (port < 0 || port > 65535) {
+                    System.err.println("-server needs a port number.");
+                    System.exit(-1);
+                }
+                server.listen(port);
+            }
+            return;
+        }
+
+        if (args.length > 0 && args[0].equals("-batch")) {
+            int threads = 1;
+            int first = 1;
+            if (args.length > 2 && args[1].equals("-j")) {
+                try {
+                    threads = Integer.parseInt(args[2]);
+                } catch (NumberFormatException ex) {
+                    threads = 0;
+                }
+                if (threads < 1) {
+                    System.err.println("-j needs a positive number of " +
+                                       "threads.");
+                    System.exit(-1);
+                }
+                first = 3;
+            }
+            List<String> files = new ArrayList<String>();
+            for (int i = first; i < args.length; i++) {
+                addInput(args[i], files);
+            }
+            if (files.isEmpty()) {
+                System.err.println("please supply the names of the files " +
+                                   "to be parsed.");
+                System.exit(-1);
+            }
+            System.exit(batch(files, threads) ? 0 : 1);
+        }
+
         // check for command-line args
         if (args.length != 2) {
             System.err.println("please supply name of file to be parsed " +
@@ -23,49 +106,365 @@ public class P4 {
             System.exit(-1);
         }
 
-        // open input file
-        FileReader inFile = null;
+        // errors found by name analysis are only reported; a file that
+        // could not be read, written or parsed ends the program with -1
+        if (!compile(args[0], args[1], System.out, System.err, true) &&
+            !ErrMsg.hasFatal()) {
+            System.exit(-1);
+        }
+    }
+
+    /**
+     * Compiles every file in files, using up to threads threads, and prints
+     * the time taken by each of them followed by a throughput summary.
+     * Returns true iff every file compiled without errors.
+     */
+    static boolean batch(List<String> files, int threads) throws IOException {
+        // a file is not compiled when its output would overwrite an input,
+        // or the output of a file given before it
+        Set<String> inputs = new HashSet<String>();
+        for (String name : files) {
+            inputs.add(new File(name).getCanonicalPath());
+        }
+        Map<String, String> outputs = new HashMap<String, String>();
+        List<Unit> units = new ArrayList<Unit>();
+        for (String name : files) {
+            Unit unit = new Unit(name, outName(name));
+            String path = new File(unit.outName).getCanonicalPath();
+            if (inputs.contains(path)) {
+                unit.conflict = "Output file " + unit.outName + " of " +
+                    name + " is an input file; " + name + " not compiled.";
+            } else if (outputs.containsKey(path)) {
+                unit.conflict = "Output file " + unit.outName + " of " +
+                    name + " is also the output of " + outputs.get(path) +
+                    "; " + name + " not compiled.";
+            } else {
+                outputs.put(path, name);
+            }
+            units.add(unit);
+        }
+
+        long start = System.nanoTime();
+        if (threads == 1) {
+            for (Unit unit : units) {
+                unit.call();
+                unit.print();
+            }
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<Unit>> done = new ArrayList<Future<Unit>>();
+                for (Unit unit : units) {
+                    done.add(pool.submit(unit));
+                }
+                // print what every file wrote, in the order of the files
+                for (int i = 0; i < done.size(); i++) {
+                    Unit unit = units.get(i);
+                    try {
+                        done.get(i).get();
+                    } catch (ExecutionException ex) {
+                        // only this file is lost, not the rest of the batch
+                        PrintStream e = new PrintStream(unit.err);
+                        e.println("Exception occured while compiling " +
+                                  unit.name + ": " + ex.getCause());
+                        e.flush();
+                        unit.ok = false;
+                    }
+                    unit.print();
+                }
+            } catch (InterruptedException ex) {
+                System.err.println("batch compilation interrupted");
+                return false;
+            } finally {
+                pool.shutdown();
+            }
+        }
+        long total = System.nanoTime() - start;
+
+        long bytes = 0;
+        int failed = 0;
+        System.out.println("\nBatch timings");
+        for (Unit unit : units) {
+            System.out.printf("%10.3f ms  %s%s%n", unit.time / 1e6,
+                              unit.name, unit.ok ? "" : "  (errors)");
+            bytes += unit.bytes;
+            if (!unit.ok) {
+                failed++;
+            }
+        }
+        double seconds = total / 1e9;
+        System.out.printf("%d files (%d with errors), %d bytes in %.3f ms " +
+                          "on %d thread%s: %.1f files/s, %.1f KB/s%n",
+                          units.size(), failed, bytes, total / 1e6,
+                          threads, threads == 1 ? "" : "s",
+                          units.size() / seconds, bytes / 1024.0 / seconds);
+        return failed == 0;
+    }
+
+    /**
+     * One file of a batch compilation.  Whatever the compilation prints is
+     * kept in out and err, to be printed by print() once it is over, under
+     * the name of the file, so that what every file printed can be told
+     * apart, even when several are compiled at the same time.
+     */
+    private static class Unit implements Callable<Unit> {
+        final String name;
+        final String outName;
+        String conflict;  // why the file is not compiled, null if it is
+        final ByteArrayOutputStream out;
+        final ByteArrayOutputStream err;
+        boolean ok;
+        long time;    // in nanoseconds
+        long bytes;   // size of the input file
+
+        Unit(String name, String outName) {
+            this.name = name;
+            this.outName = outName;
+            out = new ByteArrayOutputStream();
+            err = new ByteArrayOutputStream();
+        }
+
+        /**
+         * Prints what the compilation printed: its output to System.out,
+         * after a "== name ==" line, and its messages to System.err, each
+         * line after "name: ".
+         */
+        void print() throws IOException {
+            System.out.println("== " + name + " ==");
+            out.writeTo(System.out);
+            System.out.flush();
+            if (err.size() > 0) {
+                BufferedReader lines = new BufferedReader(
+                    new StringReader(err.toString()));
+                String line;
+                while ((line = lines.readLine()) != null) {
+                    System.err.println(name + ": " + line);
+                }
+                System.err.flush();
+            }
+        }
+
+        public Unit call() {
+            PrintStream o = new PrintStream(out);
+            PrintStream e = new PrintStream(err);
+            if (conflict != null) {
+                e.println(conflict);
+                e.flush();
+                ok = false;
+                return this;
+            }
+            long start = System.nanoTime();
+            try {
+                ok = compile(name, outName, o, e, false);
+            } catch (IOException | RuntimeException | StackOverflowError ex) {
+                // only this file is lost, not the rest of the batch, as
+                // when it runs on a thread of the pool
+                e.println("Exception occured while compiling " + name +
+                          ": " + ex);
+                ok = false;
+            }
+            time = System.nanoTime() - start;
+            bytes = new File(name).length();
+            o.flush();
+            e.flush();
+            return this;
+        }
+    }
+
+    /**
+     * Compiles the cimple program in inName and unparses it into outName,
+     * printing progress to out and messages to err.  Every compilation has
+     * its own scanner, parser, symbol table and error state, so this may be
+     * called any number of times in one JVM, and from several threads at
+     * once.  The parser reports every syntax error in the file; when
+     * exitOnSyntaxError is true and there were any, the program then ends,
+     * otherwise only this compilation is abandoned.
+     * Returns true iff no errors were reported.
+     */
+    static boolean compile(String inName, String outName,
+                           PrintStream out, PrintStream err,
+                           boolean exitOnSyntaxError)
+        throws IOException // may be thrown by the scanner
+    {
+        // read input file
+        SourceFile inFile = null;
         try {
-            inFile = new FileReader(args[0]);
+            inFile = SourceFile.read(inName);
         } catch (FileNotFoundException ex) {
-            System.err.println("File " + args[0] + " not found.");
-            System.exit(-1);
+            err.println("File " + inName + " not found.");
+            return false;
         }
 
         // open output file
-        PrintWriter outFile = null;
+        FileOutputStream outFile = null;
         try {
-            outFile = new PrintWriter(args[1]);
+            outFile = new FileOutputStream(outName);
         } catch (FileNotFoundException ex) {
-            System.err.println("File " + args[1] +
-                               " could not be opened for writing.");
-            System.exit(-1);
+            err.println("File " + outName +
+                        " could not be opened for writing.");
+            return false;
+        }
+
+        // unparse into this thread's buffer, then write it out at once
+        UnparseWriter unparse = unparseWriter();
+        boolean ok;
+        try {
+            ok = compile(inFile.scanner(), unparse, out, err,
+                         exitOnSyntaxError, null);
+            unparse.writeTo(outFile.getChannel());
+        } finally {
+            outFile.close();
         }
+        return ok;
+    }
+
+    /**
+     * Compiles the cimple program that scanner scans and unparses it into
+     * unparse, printing progress to out and messages to err.  The caller
+     * owns unparse and must close it.  When incremental is not null it is
+     * used to do the name analysis, so that what did not change since the
+     * last program it analysed is not analysed again.  Returns true iff no
+     * errors were reported.
+     */
+    static boolean compile(Yylex scanner, PrintWriter unparse,
+                           PrintStream out, PrintStream err,
+                           boolean exitOnSyntaxError,
+                           IncrementalAnalysis incremental)
+        throws IOException // may be thrown by the scanner
+    {
+        ErrMsg.reset(err);
 
-        parser P = new parser(new Yylex(inFile));
+        // scan the whole file first, then parse its tokens
+        TokenBuffer tokens = tokenBuffers.get();
+        tokens.clear();
+        scanner.scanInto(tokens);
+        PooledSymbolFactory symbols = symbolFactories.get();
+        parser P = new parser(new TokenStream(tokens, scanner.getNamePool(),
+                                              symbols), symbols);
 
         Symbol root = null; // the parser will return a Symbol whose value
                             // field is the translation of the root nonterminal
                             // (i.e., of the nonterminal "program")
 
+        // messages are kept until the end of each phase, then printed at once
         try {
-            root = P.parse(); 
-            System.out.println ("program parsed correctly.");
+            root = P.parse();
         } catch (Exception ex){
-            System.err.println("Exception occured during parse: " + ex);
-            System.exit(-1);
+            // a syntax error the parser could not recover from was reported
+            // already; anything else was not
+            if (P.syntaxErrors == 0) {
+                ErrMsg.flush();
+                err.println("Exception occured during parse: " + ex);
+                return false;
+            }
+        }
+        ErrMsg.flush();
+        if (P.syntaxErrors > 0) {
+            if (exitOnSyntaxError) {
+                System.exit(-1);
+            }
+            return false;
         }
-        SymTable symTable = new SymTable();
-        ((ASTnode)root.value).setSymTable(symTable);
-        if (ErrMsg.fatal == false) {
-            ((ASTnode)root.value).nameAnalysis();
+        out.println ("program parsed correctly.");
+        SymTable symTable = new FlatSymTable(scanner.getNamePool());
+        if (ErrMsg.hasFatal() == false) {
+            if (incremental == null) {
+                ((ASTnode)root.value).nameAnalysis(symTable);
+            } else {
+                incremental.nameAnalysis((ProgramNode)root.value, symTable);
+            }
+            ErrMsg.flush();
         }
-        symTable.print();
-        if (ErrMsg.fatal == false) {
-            ((ASTnode)root.value).unparse(outFile, 0);
+        symTable.print(out);
+        if (ErrMsg.hasFatal() == false) {
+            ((ASTnode)root.value).unparse(unparse, 0);
         }
-        outFile.close();
 
-        return;
+        return !ErrMsg.hasFatal();
+    }
+
+    // the token buffer of each thread, reused by all its compilations
+    private static final ThreadLocal<TokenBuffer> tokenBuffers =
+        new ThreadLocal<TokenBuffer>() {
+            protected TokenBuffer initialValue() {
+                return new TokenBuffer();
+            }
+        };
+
+    // the Symbol pool of each thread, shared by its scanners and parsers
+    private static final ThreadLocal<PooledSymbolFactory> symbolFactories =
+        new ThreadLocal<PooledSymbolFactory>() {
+            protected PooledSymbolFactory initialValue() {
+                return new PooledSymbolFactory();
+            }
+        };
+
+    // the unparse buffer of each thread, reused by all its compilations
+    private static final ThreadLocal<UnparseWriter> unparseWriters =
+        new ThreadLocal<UnparseWriter>() {
+            protected UnparseWriter initialValue() {
+                return new UnparseWriter();
+            }
+        };
+
+    /**
+     * Returns the unparse buffer of the current thread, emptied.
+     */
+    static UnparseWriter unparseWriter() {
+        UnparseWriter w = unparseWriters.get();
+        w.reset();
+        return w;
+    }
+
+    /**
+     * Returns a PrintStream that throws away whatever is printed to it.
+     */
+    static PrintStream nullStream() {
+        return new PrintStream(new OutputStream() {
+            public void write(int b) {
+            }
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+    }
+
+    /**
+     * Adds arg to files, or, if arg is of the form @manifest, every file
+     * named in the manifest.
+     */
+    private static void addInput(String arg, List<String> files)
+        throws IOException
+    {
+        if (!arg.startsWith("@")) {
+            files.add(arg);
+            return;
+        }
+        BufferedReader manifest = null;
+        try {
+            manifest = new BufferedReader(new FileReader(arg.substring(1)));
+        } catch (FileNotFoundException ex) {
+            System.err.println("Manifest " + arg.substring(1) + " not found.");
+            System.exit(-1);
+        }
+        String line;
+        while ((line = manifest.readLine()) != null) {
+            line = line.trim();
+            if (line.length() > 0 && !line.startsWith("#")) {
+                files.add(line);
+            }
+        }
+        manifest.close();
+    }
+
+    /**
+     * Returns the name of the unparse file for the input file name: the same
+     * name with its extension replaced by ".out".
+     */
+    private static String outName(String name) {
+        int dot = name.lastIndexOf('.');
+        if (dot > name.lastIndexOf(File.separatorChar)) {
+            name = name.substring(0, dot);
+        }
+        return name + ".out";
     }
 }
@@ -0,0 +1,126 @@
+import java.io.*;
+import java_cup.runtime.*;
+
+/**
+ * ParseBench
+ *
+ * Compares the parse throughput of the two encodings of the parse tables
+ * in lr_parser: the compressed rows the generated parser supplies, which
+ * are searched on every lookup, and the dense tables they are expanded
+ * into, which are indexed directly:
+ *
+ *    java ParseBench [kilobytes] [runs]
+ *
+ * The program of FrontEndBench is scanned once into a TokenBuffer, then
+ * parsed PARSES times per run with each encoding.  As the actions and the
+ * Symbols take most of the time of a parse, the tokens are also recognized
+ * by a loop that only looks up the tables, on a stack of states.
+ */
+public class ParseBench {
+    private static final int PARSES = 10;
+
+    public static void main(String[] args) throws Exception {
+        int kbytes = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        ErrMsg.reset();
+        Yylex scanner = new Yylex(new StringReader(
+                            FrontEndBench.program(kbytes * 1024)));
+        TokenBuffer tokens = new TokenBuffer();
+        scanner.scanInto(tokens);
+        System.out.println(tokens.size() + " tokens");
+
+        for (int run = 1; run <= runs; run++) {
+            System.out.println("run " + run);
+
+            FrontEndBench.Meter m = new FrontEndBench.Meter();
+            long start = System.nanoTime();
+            for (int i = 0; i < PARSES; i++) {
+                new CompressedParser(
+                    new TokenStream(tokens, scanner.getNamePool())).parse();
+            }
+            report(m, "compressed", start, tokens);
+
+            m = new FrontEndBench.Meter();
+            start = System.nanoTime();
+            for (int i = 0; i < PARSES; i++) {
+                new parser(
+                    new TokenStream(tokens, scanner.getNamePool())).parse();
+            }
+            report(m, "dense", start, tokens);
+
+            for (boolean dense : new boolean[] {false, true}) {
+                Recognizer r = new Recognizer(dense);
+                m = new FrontEndBench.Meter();
+                start = System.nanoTime();
+                for (int i = 0; i < PARSES; i++) {
+                    r.recognize(tokens);
+                }
+                report(m, dense ? "tables dense" : "tables compr.", start,
+                       tokens);
+            }
+        }
+    }
+
+    /**
+     * The parser, searching the compressed tables.
+     */
+    private static class CompressedParser extends parser {
+        CompressedParser(Scanner s) {
+            super(s);
+        }
+
+        protected int dense_table_limit() {
+            return 0;
+        }
+    }
+
+    /**
+     * Runs the parse tables over tokens, without doing any action.
+     */
+    private static class Recognizer extends parser {
+        private int[] states = new int[64];
+
+        Recognizer(boolean dense) {
+            production_tab = production_table();
+            action_tab = action_table();
+            reduce_tab = reduce_table();
+            if (dense) {
+                expand_tables();
+            }
+        }
+
+        void recognize(TokenBuffer tokens) {
+            int top = 0;
+            states[0] = start_state();
+            int i = 0;
+            for (;;) {
+                int act = get_action(states[top], tokens.kind(i));
+                if (act > 0) {
+                    if (++top == states.length) {
+                        states = java.util.Arrays.copyOf(states, 2 * top);
+                    }
+                    states[top] = act - 1;
+                    i++;
+                } else if (act < 0) {
+                    if (-act - 1 == start_production()) {
+                        return;
+                    }
+                    top -= production_tab[-act - 1][1];
+                    int lhs = production_tab[-act - 1][0];
+                    states[top + 1] = get_reduce(states[top], lhs);
+                    top++;
+                } else {
+                    throw new IllegalStateException("syntax error");
+                }
+            }
+        }
+    }
+
+    private static void report(FrontEndBench.Meter m, String tables,
+                               long start, TokenBuffer tokens) {
+        double secs = (System.nanoTime() - start) / 1e9;
+        m.report(tables, String.format("%.1f M tokens/s",
+                                       PARSES * tokens.size() / secs / 1e6));
+    }
+}
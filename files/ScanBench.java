@@ -0,0 +1,69 @@
+import java.io.*;
+
+/**
+ * ScanBench
+ *
+ * Measures the throughput of the scanner.  JLex can code its DFA as one
+ * flat transition table, as the packed tables of %pack, which share the
+ * rows that are the same, or, with the %switch directive, as a switch on
+ * the state with a binary search on the character; the bench-scan target
+ * runs this once with each:
+ *
+ *    java ScanBench [kilobytes] [runs]
+ *
+ * The program of FrontEndBench is scanned SCANS times per run into a
+ * TokenBuffer, from its characters in memory as SourceFile gives them.
+ */
+public class ScanBench {
+    private static final int SCANS = 10;
+
+    public static void main(String[] args) throws Exception {
+        int kbytes = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        char[] text = FrontEndBench.program(kbytes * 1024).toCharArray();
+        // one more character, as SourceFile leaves, so that the scanner
+        // never finds its buffer full
+        char[] buffer = new char[text.length + 1];
+        String mode = mode();
+        System.out.println(text.length + " characters, DFA as " + mode);
+
+        ErrMsg.reset();
+        TokenBuffer tokens = new TokenBuffer();
+        Yylex scanner = null;
+        for (int run = 1; run <= runs; run++) {
+            FrontEndBench.Meter m = new FrontEndBench.Meter();
+            long start = System.nanoTime();
+            for (int i = 0; i < SCANS; i++) {
+                System.arraycopy(text, 0, buffer, 0, text.length);
+                if (scanner == null) {
+                    scanner = new Yylex(buffer, text.length);
+                } else {
+                    scanner.reset(buffer, text.length);
+                }
+                tokens.clear();
+                scanner.scanInto(tokens);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            m.report("run " + run, String.format("%.1f M chars/s  %.1f M tokens/s",
+                     (double)text.length * SCANS / seconds / 1e6,
+                     (double)tokens.size() * SCANS / seconds / 1e6));
+        }
+    }
+
+    // which tables JLex generated, if any
+    private static String mode() {
+        if (hasField("yy_trans")) return "flat table";
+        if (hasField("yy_nxt")) return "packed tables";
+        return "switch";
+    }
+
+    private static boolean hasField(String name) {
+        try {
+            Yylex.class.getDeclaredField(name);
+            return true;
+        } catch (NoSuchFieldException ex) {
+            return false;
+        }
+    }
+}
@@ -2,46 +2,36 @@ import java.util.*;
 
 public class SemSym {
     private String name;
-    private String type;
+    private Type type;
     private boolean isFunc;
-    private int params;
-    private List<String> paramTypes;
-    private HashMap<String,SemSym> decls;
-    private String returnType;
-    private String actualType = "";
+    private StructType struct;  // the struct of a struct name or variable
     private IdNode id;
     
-    public SemSym(String name, String type) {
+    public SemSym(String name, Type type) {
         this.name = name;
         this.type = type;
-        isFunc = false;
-    }
-
-    public SemSym(String name, String returnType, int params, List<String> paramTypes){
-        isFunc = true;
-        this.name = name;
-        this.type = returnType;
-        this.returnType = returnType;
-        this.params = params;
-        this.paramTypes = paramTypes;
+        isFunc = type instanceof FnType;
+        if (type instanceof StructType) {
+            struct = (StructType)type;
+        }
     }
 
     public SemSym(String name,HashMap<String,SemSym> decls){
-	actualType = "struct";
-	this.type = "struct";
-	this.decls = decls;
-	this.name = name;
-    }
-
-    public SemSym(String name,HashMap<String,SemSym> decls,String type){
-	actualType = "struct";
-	this.type = type;
-	this.decls = decls;
+	this.type = Type.STRUCT;
+	this.struct = new StructType(name, decls);
 	this.name = name;
     }
     
     public HashMap<String,SemSym>getDecls(){
-	return decls;
+	return struct == null ? null : struct.getFields();
+    }
+
+    public StructType getStructType(){
+	return struct;
+    }
+
+    public boolean isStruct(){
+	return struct != null;
     }
 
     public String getName(){
@@ -56,20 +46,16 @@ public class SemSym {
 	return id;
     }
 
-    public String getType() {
+    public Type getType() {
         return type;
     }
 
-    public String getActualType(){
-	return actualType;
+    public Type getReturnType(){
+        return isFunc ? ((FnType)type).getReturnType() : null;
     }
 
-    public String getReturnType(){
-        return returnType;
-    }
-
-    public List<String> getParamTypes(){
-        return paramTypes;
+    public Type[] getParamTypes(){
+        return isFunc ? ((FnType)type).getParamTypes() : null;
     }
 
     public boolean isFunc(){
@@ -77,6 +63,6 @@ public class SemSym {
     }
     
     public String toString() {
-        return type;
+        return type.toString();
     }
 }
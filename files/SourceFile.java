@@ -0,0 +1,98 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+
+/**
+ * SourceFile
+ *
+ * The whole text of a source file.  The file is memory-mapped and decoded
+ * once, in the same character set as a FileReader would use, into a single
+ * array that the scanner then works in directly: it never refills, copies
+ * or grows its buffer as it does when it reads through a Reader.
+ *
+ * The array is reused by the next file read on the same thread, as P4
+ * reuses its token buffers, so a SourceFile must be scanned before the
+ * thread reads another one.  So is the scanner, which is reset for each
+ * file rather than made anew.
+ */
+class SourceFile {
+    // the array that the files read on each thread are decoded into
+    private static final ThreadLocal<CharBuffer> buffers =
+        new ThreadLocal<CharBuffer>() {
+            protected CharBuffer initialValue() {
+                return CharBuffer.allocate(4096);
+            }
+        };
+
+    // the scanner of each thread, reset for every file it scans
+    private static final ThreadLocal<Yylex> scanners =
+        new ThreadLocal<Yylex>();
+
+    private char[] text;
+    private int length;  // text holds length characters from 0
+
+    private SourceFile(char[] text, int length) {
+        this.text = text;
+        this.length = length;
+    }
+
+    /**
+     * Reads the named file.
+     */
+    public static SourceFile read(String name) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(Paths.get(name),
+                                       StandardOpenOption.READ);
+        } catch (NoSuchFileException ex) {
+            throw new FileNotFoundException(name);
+        }
+        try {
+            ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                                           channel.size());
+            CharsetDecoder decoder = Charset.defaultCharset().newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            // room for the longest possible text, so that one decode call
+            // does it all, and one more character, so that the scanner
+            // never finds its buffer full
+            long room = (long)Math.ceil(bytes.remaining() *
+                                        (double)decoder.maxCharsPerByte()) + 1;
+            if (room > Integer.MAX_VALUE) {
+                throw new IOException(name + " is too large");
+            }
+            CharBuffer chars = buffers.get();
+            if (chars.capacity() < room) {
+                chars = CharBuffer.allocate((int)room);
+                buffers.set(chars);
+            }
+            chars.clear();
+            decoder.decode(bytes, chars, true);
+            decoder.flush(chars);
+            return new SourceFile(chars.array(), chars.position());
+        } finally {
+            channel.close();
+        }
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns this thread's scanner, set to scan the text from the start.
+     * It is only good until the thread asks for a scanner again.
+     */
+    public Yylex scanner() {
+        Yylex scanner = scanners.get();
+        if (scanner == null) {
+            scanner = new Yylex(text, length);
+            scanners.set(scanner);
+        } else {
+            scanner.reset(text, length);
+        }
+        return scanner;
+    }
+}
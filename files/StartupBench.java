@@ -0,0 +1,81 @@
+import java.io.*;
+import java_cup.runtime.*;
+
+/**
+ * StartupBench
+ *
+ * Measures what it costs to get a parser going, as a compile server or a
+ * batch compilation does for every file it reads:
+ *
+ *    java StartupBench [parses] [runs]
+ *
+ * The first parse in the JVM loads the parser and scanner classes, which
+ * decode their tables, and expands the parse tables; it is timed on its
+ * own.  Then each run parses a small program the given number of times,
+ * each time with a new parser, and prints the mean time and memory taken
+ * by a parse.  It then scans the program as many times, with a new scanner
+ * each time and with one scanner that is reset for every scan.
+ */
+public class StartupBench {
+    private static final String PROGRAM =
+        "int total;\n" +
+        "int step(int count, bool flag) {\n" +
+        "    int i;\n" +
+        "    i = 0;\n" +
+        "    while (i < count) {\n" +
+        "        if (flag) {\n" +
+        "            total = total + i;\n" +
+        "        }\n" +
+        "        i++;\n" +
+        "    }\n" +
+        "    return total;\n" +
+        "}\n";
+
+    public static void main(String[] args) throws Exception {
+        int parses = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        ErrMsg.reset();
+        FrontEndBench.Meter m = new FrontEndBench.Meter();
+        parse();
+        m.report("first parse", "");
+
+        for (int run = 1; run <= runs; run++) {
+            long start = System.nanoTime();
+            m = new FrontEndBench.Meter();
+            for (int i = 0; i < parses; i++) {
+                parse();
+            }
+            m.report("run " + run, String.format("%.2f us per parse",
+                     (System.nanoTime() - start) / 1e3 / parses));
+
+            TokenBuffer tokens = new TokenBuffer();
+            start = System.nanoTime();
+            m = new FrontEndBench.Meter();
+            for (int i = 0; i < parses; i++) {
+                tokens.clear();
+                new Yylex(new StringReader(PROGRAM)).scanInto(tokens);
+            }
+            m.report("  new scanner", String.format("%.2f us per scan",
+                     (System.nanoTime() - start) / 1e3 / parses));
+
+            Yylex scanner = new Yylex(new StringReader(PROGRAM));
+            start = System.nanoTime();
+            m = new FrontEndBench.Meter();
+            for (int i = 0; i < parses; i++) {
+                tokens.clear();
+                scanner.yyreset(new StringReader(PROGRAM));
+                scanner.scanInto(tokens);
+            }
+            m.report("  reset", String.format("%.2f us per scan",
+                     (System.nanoTime() - start) / 1e3 / parses));
+        }
+    }
+
+    private static void parse() throws Exception {
+        Yylex scanner = new Yylex(new StringReader(PROGRAM));
+        TokenBuffer tokens = new TokenBuffer();
+        scanner.scanInto(tokens);
+        new parser(new TokenStream(tokens, scanner.getNamePool())).parse();
+    }
+}
@@ -0,0 +1,20 @@
+import java.util.*;
+
+/**
+ * StructType
+ *
+ * The type of the variables of one struct.  It is created once, when the
+ * struct is declared, and holds the symbols of the struct's fields.
+ */
+public class StructType extends Type {
+    private final HashMap<String, SemSym> fields;
+
+    public StructType(String name, HashMap<String, SemSym> fields) {
+        super(name);
+        this.fields = fields;
+    }
+
+    public HashMap<String, SemSym> getFields() {
+        return fields;
+    }
+}
@@ -1,7 +1,11 @@
+import java.io.*;
 import java.util.*;
 
 public class SymTable {
     private List<HashMap<String, SemSym>> list;
+    // if not null, lookupGlobal puts here every symbol it finds in the
+    // outermost (global) scope
+    private Map<String, SemSym> globalUses;
     
     public SymTable() {
         list = new LinkedList<HashMap<String, SemSym>>();
@@ -23,6 +27,15 @@ public class SymTable {
         symTab.put(name, sym);
     }
     
+    /**
+     * Same as addDecl(name.getText(), sym).  Subclasses may use the id of
+     * the interned name instead of its text.
+     */
+    public void addDecl(Name name, SemSym sym)
+    throws DuplicateSymException, EmptySymTableException {
+        addDecl(name.getText(), sym);
+    }
+    
     public void addScope() {
         list.add(0, new HashMap<String, SemSym>());
     }
@@ -35,18 +48,37 @@ public class SymTable {
         return symTab.get(name);
     }
     
+    public SemSym lookupLocal(Name name) {
+        return lookupLocal(name.getText());
+    }
+    
     public SemSym lookupGlobal(String name) {
         if (list.isEmpty())
             return null;
         
         for (HashMap<String, SemSym> symTab : list) {
             SemSym sym = symTab.get(name);
-            if (sym != null)
+            if (sym != null) {
+                if (globalUses != null && symTab == list.get(list.size() - 1))
+                    globalUses.put(name, sym);
                 return sym;
+            }
         }
         return null;
     }
     
+    public SemSym lookupGlobal(Name name) {
+        return lookupGlobal(name.getText());
+    }
+    
+    /**
+     * Starts (or, if uses is null, stops) recording the global symbols that
+     * lookupGlobal finds: each of them is put into uses under its name.
+     */
+    public void recordGlobalUses(Map<String, SemSym> uses) {
+        globalUses = uses;
+    }
+    
     public void removeScope() throws EmptySymTableException {
         if (list.isEmpty())
             throw new EmptySymTableException();
@@ -54,10 +86,14 @@ public class SymTable {
     }
     
     public void print() {
-        System.out.print("\nSym Table\n");
+        print(System.out);
+    }
+    
+    public void print(PrintStream out) {
+        out.print("\nSym Table\n");
         for (HashMap<String, SemSym> symTab : list) {
-            System.out.println(symTab.toString());
+            out.println(symTab.toString());
         }
-        System.out.println();
+        out.println();
     }
 }
@@ -0,0 +1,108 @@
+import java.util.*;
+
+/**
+ * SymTableBench
+ *
+ * Compares SymTable with FlatSymTable on the pattern of calls that name
+ * analysis makes for a function with deeply nested blocks: every block is
+ * entered, declares a few locals, looks up identifiers declared in it, in
+ * the enclosing blocks and in the global scope, and is left again.
+ * FlatSymTable is measured both with String names and with the Names of
+ * its NamePool, as the AST uses it.
+ *
+ *    java SymTableBench [depth] [rounds]
+ */
+public class SymTableBench {
+    private static final int GLOBALS = 200;
+    private static final int LOCALS = 4;   // declared by every block
+    private static final int USES = 32;    // lookups in every block
+
+    public static void main(String[] args) throws Exception {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        NamePool pool = new NamePool();
+        Name[] globals = names(pool, "g", GLOBALS);
+        Name[][] locals = new Name[depth][];
+        for (int d = 0; d < depth; d++) {
+            locals[d] = names(pool, "l" + d + "_", LOCALS);
+        }
+        SemSym sym = new SemSym("x", Type.INT);
+
+        System.out.println("depth " + depth + ", " + rounds + " rounds");
+        for (int run = 0; run < 5; run++) {  // the first runs warm up
+            long list = time(new SymTable(), false, globals, locals, sym,
+                             rounds);
+            long flat = time(new FlatSymTable(), false, globals, locals, sym,
+                             rounds);
+            long named = time(new FlatSymTable(pool), true, globals, locals,
+                              sym, rounds);
+            System.out.printf("SymTable %8.3f ms   FlatSymTable %8.3f ms   " +
+                              "with Names %8.3f ms%n", list / 1e6,
+                              flat / 1e6, named / 1e6);
+        }
+    }
+
+    private static Name[] names(NamePool pool, String prefix, int n) {
+        Name[] names = new Name[n];
+        for (int i = 0; i < n; i++) {
+            names[i] = pool.intern(prefix + i);
+        }
+        return names;
+    }
+
+    /**
+     * Returns the time taken, in nanoseconds, by rounds traversals of the
+     * nested blocks using symTab, giving it the names as Names if byName is
+     * true and as Strings otherwise.
+     */
+    private static long time(SymTable symTab, boolean byName, Name[] globals,
+                             Name[][] locals, SemSym sym, int rounds)
+        throws Exception
+    {
+        for (Name g : globals) {
+            if (byName) {
+                symTab.addDecl(g, sym);
+            } else {
+                symTab.addDecl(g.getText(), sym);
+            }
+        }
+        Random random = new Random(536);
+        int found = 0;
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            for (int d = 0; d < locals.length; d++) {
+                symTab.addScope();
+                for (Name l : locals[d]) {
+                    if (byName) {
+                        symTab.addDecl(l, sym);
+                    } else {
+                        symTab.addDecl(l.getText(), sym);
+                    }
+                }
+                for (int u = 0; u < USES; u++) {
+                    Name name;
+                    if (u % 2 == 0) {
+                        name = globals[random.nextInt(globals.length)];
+                    } else {
+                        Name[] in = locals[random.nextInt(d + 1)];
+                        name = in[random.nextInt(in.length)];
+                    }
+                    SemSym s = byName ? symTab.lookupGlobal(name)
+                                      : symTab.lookupGlobal(name.getText());
+                    if (s != null) {
+                        found++;
+                    }
+                }
+            }
+            for (int d = 0; d < locals.length; d++) {
+                symTab.removeScope();
+            }
+        }
+        long time = System.nanoTime() - start;
+        if (found != rounds * locals.length * USES) {
+            throw new IllegalStateException("lookups failed");
+        }
+        return time;
+    }
+}
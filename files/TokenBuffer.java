@@ -0,0 +1,129 @@
+import java.util.*;
+
+/**
+ * TokenBuffer
+ *
+ * The tokens of a whole file, stored column by column: for token i, its
+ * kind (a constant of sym), the line and the character on that line where
+ * it starts, and, for the tokens that have a value (identifiers and
+ * literals), where its characters start in the buffer's text and how many
+ * there are.  Adding a token allocates nothing once the arrays are big
+ * enough, and clear() keeps them, so a buffer reused for file after file
+ * soon stops allocating at all.  Strings and Names are only made when the
+ * parser keeps a token in the AST (see TokenStream).
+ */
+public class TokenBuffer {
+    private int[] kind = new int[1024];
+    private int[] line = new int[1024];
+    private int[] column = new int[1024];
+    private int[] start = new int[1024];
+    private int[] length = new int[1024];
+    private char[] text = new char[4096];
+    private int size;      // number of tokens
+    private int textSize;  // number of characters used in text
+
+    /**
+     * Removes all the tokens, keeping the storage for the next file.
+     */
+    public void clear() {
+        size = 0;
+        textSize = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a token that has no value.
+     */
+    public void add(int kind, int line, int column) {
+        add(kind, line, column, text, 0, 0);
+    }
+
+    /**
+     * Adds a token whose value is the len characters of buf from off.
+     */
+    public void add(int kind, int line, int column,
+                    char[] buf, int off, int len) {
+        if (size == this.kind.length) {
+            int n = 2 * size;
+            this.kind = Arrays.copyOf(this.kind, n);
+            this.line = Arrays.copyOf(this.line, n);
+            this.column = Arrays.copyOf(this.column, n);
+            this.start = Arrays.copyOf(this.start, n);
+            this.length = Arrays.copyOf(this.length, n);
+        }
+        if (textSize + len > text.length) {
+            text = Arrays.copyOf(text, Math.max(2 * text.length,
+                                                textSize + len));
+        }
+        System.arraycopy(buf, off, text, textSize, len);
+        this.kind[size] = kind;
+        this.line[size] = line;
+        this.column[size] = column;
+        this.start[size] = textSize;
+        this.length[size] = len;
+        textSize += len;
+        size++;
+    }
+
+    public int kind(int i) {
+        return kind[i];
+    }
+
+    public int line(int i) {
+        return line[i];
+    }
+
+    public int column(int i) {
+        return column[i];
+    }
+
+    public int start(int i) {
+        return start[i];
+    }
+
+    public int length(int i) {
+        return length[i];
+    }
+
+    /**
+     * Returns the characters of the values of the tokens; the value of token
+     * i is the length(i) characters from start(i).
+     */
+    public char[] text() {
+        return text;
+    }
+
+    /**
+     * Returns the value of token i as a new String.
+     */
+    public String text(int i) {
+        return new String(text, start[i], length[i]);
+    }
+
+    /**
+     * Returns the value of token i, an integer literal, or
+     * Integer.MAX_VALUE if it is too large.
+     */
+    public int intValue(int i) {
+        return (int)Math.min(parseDigits(text, start[i], length[i]),
+                             Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the value of the len decimal digits of buf from off, or
+     * Integer.MAX_VALUE + 1 if it is larger than Integer.MAX_VALUE.
+     */
+    static long parseDigits(char[] buf, int off, int len) {
+        long val = 0;
+        for (int i = off; i < off + len; i++) {
+            val = 10 * val + (buf[i] - '0');
+            if (val > Integer.MAX_VALUE) {
+                return Integer.MAX_VALUE + 1L;
+            }
+        }
+        return val;
+    }
+}
@@ -0,0 +1,92 @@
+import java_cup.runtime.*;
+
+/**
+ * TokenStream
+ *
+ * Hands the tokens of a TokenBuffer to the parser, one Symbol at a time.
+ * A Symbol has no value: its left and right are the index of its token in
+ * the buffer, from which the actions of the grammar that keep a token get
+ * its position and its value (see line, column, name, intValue and
+ * string).  So an identifier is only interned, and a string literal only
+ * becomes a String, when the AST keeps it, and nothing is made for the
+ * other tokens but their Symbols.  After the last token, the end of file
+ * is returned again and again.  The Symbols are made by a SymbolFactory
+ * when one is given, so that they can come from the pool of a
+ * PooledSymbolFactory shared with the parser.
+ */
+class TokenStream implements Scanner {
+    private TokenBuffer tokens;
+    private NamePool names;
+    private SymbolFactory symbols;  // null to make plain Symbols
+    private int next;  // the next token to return
+
+    /**
+     * Creates a stream of the tokens of a whole file, ending with sym.EOF,
+     * whose identifiers are interned in names.
+     */
+    public TokenStream(TokenBuffer tokens, NamePool names) {
+        this(tokens, names, null);
+    }
+
+    /**
+     * Creates a stream of the tokens of a whole file, ending with sym.EOF,
+     * whose identifiers are interned in names, and whose Symbols are made
+     * by symbols.
+     */
+    public TokenStream(TokenBuffer tokens, NamePool names,
+                       SymbolFactory symbols) {
+        this.tokens = tokens;
+        this.names = names;
+        this.symbols = symbols;
+    }
+
+    public Symbol next_token() {
+        int i = next;
+        if (next < tokens.size() - 1) {
+            next++;
+        }
+        int kind = tokens.kind(i);
+        if (symbols == null) {
+            return new Symbol(kind, i, i);
+        }
+        Symbol s = symbols.newSymbol(sym.terminalNames[kind], kind);
+        s.left = i;
+        s.right = i;
+        return s;
+    }
+
+    /**
+     * Returns the line of token i.
+     */
+    public int line(int i) {
+        return tokens.line(i);
+    }
+
+    /**
+     * Returns the character on its line where token i starts.
+     */
+    public int column(int i) {
+        return tokens.column(i);
+    }
+
+    /**
+     * Returns the interned name of token i, an identifier.
+     */
+    public Name name(int i) {
+        return names.intern(tokens.text(), tokens.start(i), tokens.length(i));
+    }
+
+    /**
+     * Returns the value of token i, an integer literal.
+     */
+    public int intValue(int i) {
+        return tokens.intValue(i);
+    }
+
+    /**
+     * Returns the text of token i, a string literal.
+     */
+    public String string(int i) {
+        return tokens.text(i);
+    }
+}
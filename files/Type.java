@@ -0,0 +1,30 @@
+/**
+ * Type
+ *
+ * The type of a cimple name or expression.  There is exactly one Type
+ * object for each type: the primitive types are the constants below, each
+ * struct declaration has its own StructType and each function declaration
+ * its own FnType.  Types are therefore compared with ==, and printing a type
+ * allocates nothing.
+ */
+public class Type {
+    public static final Type INT = new Type("int");
+    public static final Type BOOL = new Type("bool");
+    public static final Type VOID = new Type("void");
+    // the type of the name of a struct (not of a variable of that struct)
+    public static final Type STRUCT = new Type("struct");
+
+    private final String name;
+
+    protected Type(String name) {
+        this.name = name;
+    }
+
+    public boolean isVoid() {
+        return this == VOID;
+    }
+
+    public String toString() {
+        return name;
+    }
+}
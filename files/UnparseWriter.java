@@ -0,0 +1,116 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+
+/**
+ * UnparseWriter
+ *
+ * A PrintWriter that keeps everything written to it in one growable char
+ * array, without the locking and the layers of buffering of a PrintWriter
+ * opened on a file.  The text is encoded, in the default character set as
+ * that PrintWriter would do, and written to the file with a single channel
+ * write.  reset() keeps the arrays, so a writer reused for file after file
+ * (P4 keeps one per thread) soon stops allocating.
+ */
+class UnparseWriter extends PrintWriter {
+    private static final String NEWLINE = System.lineSeparator();
+
+    private char[] buf = new char[64 * 1024];
+    private int count;
+    private ByteBuffer bytes = ByteBuffer.allocate(64 * 1024);
+
+    UnparseWriter() {
+        // everything written is kept in buf, never passed on to this
+        super(new Writer() {
+            public void write(char[] cbuf, int off, int len) {
+            }
+            public void flush() {
+            }
+            public void close() {
+            }
+        });
+    }
+
+    /**
+     * Discards what was written, keeping the storage.
+     */
+    public void reset() {
+        count = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public void write(int c) {
+        ensure(1);
+        buf[count++] = (char)c;
+    }
+
+    public void write(char[] cbuf, int off, int len) {
+        ensure(len);
+        System.arraycopy(cbuf, off, buf, count, len);
+        count += len;
+    }
+
+    public void write(String s, int off, int len) {
+        ensure(len);
+        s.getChars(off, off + len, buf, count);
+        count += len;
+    }
+
+    public void write(String s) {
+        write(s, 0, s.length());
+    }
+
+    public void println() {
+        write(NEWLINE, 0, NEWLINE.length());
+    }
+
+    public void flush() {
+    }
+
+    public void close() {
+    }
+
+    /**
+     * Writes what was written so far to channel.
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        CharsetEncoder encoder = Charset.defaultCharset().newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        long room = (long)Math.ceil(count * (double)encoder.maxBytesPerChar());
+        if (bytes.capacity() < room) {
+            bytes = ByteBuffer.allocate((int)Math.min(room, 1 << 30));
+        }
+        CharBuffer chars = CharBuffer.wrap(buf, 0, count);
+        // one round, unless the text does not fit in the largest buffer
+        boolean done = false;
+        while (!done) {
+            bytes.clear();
+            CoderResult result = encoder.encode(chars, bytes, true);
+            if (result.isUnderflow()) {
+                done = encoder.flush(bytes).isUnderflow();
+            }
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+    }
+
+    public String toString() {
+        return new String(buf, 0, count);
+    }
+
+    // makes room for n more characters
+    private void ensure(int n) {
+        if (count + n > buf.length) {
+            char[] bigger = new char[Math.max(2 * buf.length, count + n)];
+            System.arraycopy(buf, 0, bigger, 0, count);
+            buf = bigger;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+import java.io.*;
+
+/**
+ * VisitorBench
+ *
+ * Compares walking the AST with an ASTVisitor with the passes that are
+ * methods of the node classes, on the program of FrontEndBench:
+ *
+ *    java VisitorBench [kilobytes] [runs]
+ *
+ * Each pass is repeated WALKS times per run, and its time per node and the
+ * memory it allocated are printed.  The passes are
+ *   walk     a visitor that does nothing but visit every node
+ *   count    a visitor that counts the nodes
+ *   hash     DeclHasher.hash, a visitor that hashes what was written
+ *   unparse  the virtual unparse into a reused UnparseWriter
+ */
+public class VisitorBench {
+    private static final int WALKS = 20;
+
+    public static void main(String[] args) throws Exception {
+        int kbytes = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        ErrMsg.reset();
+        Yylex scanner = new Yylex(new StringReader(
+                            FrontEndBench.program(kbytes * 1024)));
+        TokenBuffer tokens = new TokenBuffer();
+        scanner.scanInto(tokens);
+        ProgramNode program = (ProgramNode)new parser(
+            new TokenStream(tokens, scanner.getNamePool())).parse().value;
+        program.nameAnalysis(new FlatSymTable(scanner.getNamePool()));
+        int nodes = FrontEndBench.countNodes(program);
+        System.out.println(nodes + " nodes");
+
+        ASTVisitor<Void> walk = new ASTVisitor<Void>();
+        final int[] count = new int[1];
+        ASTVisitor<Void> counter = new ASTVisitor<Void>() {
+            public boolean defaultPreVisit(ASTnode n) {
+                count[0]++;
+                return true;
+            }
+        };
+        UnparseWriter out = new UnparseWriter();
+
+        for (int run = 1; run <= runs; run++) {
+            System.out.println("run " + run);
+
+            FrontEndBench.Meter m = new FrontEndBench.Meter();
+            long start = System.nanoTime();
+            for (int i = 0; i < WALKS; i++) {
+                program.accept(walk);
+            }
+            report(m, "walk", start, nodes);
+
+            m = new FrontEndBench.Meter();
+            start = System.nanoTime();
+            for (int i = 0; i < WALKS; i++) {
+                count[0] = 0;
+                program.accept(counter);
+            }
+            report(m, "count", start, nodes);
+
+            m = new FrontEndBench.Meter();
+            start = System.nanoTime();
+            for (int i = 0; i < WALKS; i++) {
+                DeclHasher.hash(program);
+            }
+            report(m, "hash", start, nodes);
+
+            m = new FrontEndBench.Meter();
+            start = System.nanoTime();
+            for (int i = 0; i < WALKS; i++) {
+                out.reset();
+                program.unparse(out, 0);
+            }
+            report(m, "unparse", start, nodes);
+        }
+        if (count[0] != nodes) {
+            throw new IllegalStateException("the visitors disagree");
+        }
+    }
+
+    private static void report(FrontEndBench.Meter m, String pass,
+                               long start, int nodes) {
+        double ns = (System.nanoTime() - start) / ((double)WALKS * nodes);
+        m.report(pass, String.format("%.2f ns per node", ns));
+    }
+}
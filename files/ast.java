@@ -6,7 +6,7 @@ import java.util.*;
 // represents a Moo program.
 //
 // Internal nodes of the tree contain pointers to children, organized
-// either in a list (for nodes that may have a variable number of 
+// either in an array (for nodes that may have a variable number of
 // children) or as a fixed set of fields.
 //
 // The nodes for literals and ids contain line and character number
@@ -20,17 +20,17 @@ import java.util.*;
 //     Subclass            Kids
 //     --------            ----
 //     ProgramNode         DeclListNode
-//     DeclListNode        linked list of DeclNode
+//     DeclListNode        array of DeclNode
 //     DeclNode:
 //       VarDeclNode       TypeNode, IdNode, int
 //       FnDeclNode        TypeNode, IdNode, FormalsListNode, FnBodyNode
 //       FormalDeclNode    TypeNode, IdNode
 //       StructDeclNode    IdNode, DeclListNode
 //
-//     FormalsListNode     linked list of FormalDeclNode
+//     FormalsListNode     array of FormalDeclNode
 //     FnBodyNode          DeclListNode, StmtListNode
-//     StmtListNode        linked list of StmtNode
-//     ExpListNode         linked list of ExpNode
+//     StmtListNode        array of StmtNode
+//     ExpListNode         array of ExpNode
 //
 //     TypeNode:
 //       IntNode           -- none --
@@ -78,14 +78,14 @@ import java.util.*;
 //         GreaterEqNode
 //
 // Here are the different kinds of AST nodes again, organized according to
-// whether they are leaves, internal nodes with linked lists of kids, or
+// whether they are leaves, internal nodes with arrays of kids, or
 // internal nodes with a fixed number of kids:
 //
 // (1) Leaf nodes:
 //        IntNode,   BoolNode,  VoidNode,  IntLitNode,  StrLitNode,
 //        TrueNode,  FalseNode, IdNode
 //
-// (2) Internal nodes with (possibly empty) linked lists of children:
+// (2) Internal nodes with (possibly empty) arrays of children:
 //        DeclListNode, FormalsListNode, StmtListNode, ExpListNode
 //
 // (3) Internal nodes with fixed numbers of kids:
@@ -106,18 +106,30 @@ import java.util.*;
 // **********************************************************************
 
 abstract class ASTnode { 
-    public static SymTable symTab;
     // every subclass must provide an unparse operation
     abstract public void unparse(PrintWriter p, int indent);
 
-    abstract public void nameAnalysis();
+    // every subclass must provide a nameAnalysis operation; the symbol
+    // table is passed down the tree so that each compilation has its own
+    abstract public void nameAnalysis(SymTable symTab);
+
+    // walks this node and its kids, in the order of the source, with v;
+    // returns what v.postVisit returns for this node
+    abstract public <R> R accept(ASTVisitor<R> v);
 
-    protected void setSymTable(SymTable symTable) {
-        symTab = symTable;
-    }
     // this method can be used by the unparse methods to do indenting
     protected void doIndent(PrintWriter p, int indent) {
-        for (int k=0; k<indent; k++) p.print(" ");
+        while (indent > SPACES.length) {
+            p.write(SPACES, 0, SPACES.length);
+            indent -= SPACES.length;
+        }
+        p.write(SPACES, 0, indent);
+    }
+
+    // precomputed indentation
+    private static final char[] SPACES = new char[64];
+    static {
+        Arrays.fill(SPACES, ' ');
     }
 }
 
@@ -136,109 +148,123 @@ class ProgramNode extends ASTnode {
      * Creates an empty symbol table for the outermost scope, then processes
      * all of the globals, struct defintions, and functions in the program.
      */
-    public void nameAnalysis() {
-        myDeclList.nameAnalysis();
+    public void nameAnalysis(SymTable symTab) {
+        myDeclList.nameAnalysis(symTab);
 	// TODO: Add code here 
     }
 
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myDeclList.accept(v);
+        }
+        return v.postVisit(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         myDeclList.unparse(p, indent);
     }
 
+    public DeclListNode getDeclList() {
+        return myDeclList;
+    }
+
     // 1 kid
     private DeclListNode myDeclList;
 }
 
 class DeclListNode extends ASTnode {
-    public DeclListNode(List<DeclNode> S) {
-        myDecls = S;
+    public DeclListNode(List<? extends DeclNode> S) {
+        myDecls = S.toArray(new DeclNode[S.size()]);
     }
 
-    public void nameAnalysis() {
-        Iterator it = myDecls.iterator();
-        try {
-            while (it.hasNext()) {
-                ((DeclNode)it.next()).nameAnalysis();
-            }
-        } catch (NoSuchElementException ex) {
-            System.err.println("unexpected NoSuchElementException in DeclListNode.nameAnalysis");
-            System.exit(-1);
+    public void nameAnalysis(SymTable symTab) {
+        for (int i = 0; i < myDecls.length; i++) {
+            myDecls[i].nameAnalysis(symTab);
         }
     }
 
-    public HashMap<String,SemSym> getSyms(){
-	Iterator it = myDecls.iterator();
+    public HashMap<String,SemSym> getSyms(SymTable symTab){
 	HashMap<String,SemSym> syms = new HashMap<String,SemSym>();
         try {
 	    symTab.addScope();
 	    
-            while (it.hasNext()) {
-                SemSym s = ((VarDeclNode)it.next()).getSym();
+            for (int i = 0; i < myDecls.length; i++) {
+                SemSym s = ((VarDeclNode)myDecls[i]).getSym(symTab);
 		if(s != null){
 		    syms.put(s.getName(),s);
 		}
             }
 	    symTab.removeScope();
 	    
-        } catch (NoSuchElementException ex) {
-            System.err.println("unexpected NoSuchElementException in DeclListNode.nameAnalysis");
-            System.exit(-1);
         }catch(EmptySymTableException e){
 
 	}
 	return syms;
     }
 
-    public void unparse(PrintWriter p, int indent) {
-        Iterator it = myDecls.iterator();
-        try {
-            while (it.hasNext()) {
-                ((DeclNode)it.next()).unparse(p, indent);
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            for (int i = 0; i < myDecls.length; i++) {
+                myDecls[i].accept(v);
             }
-        } catch (NoSuchElementException ex) {
-            System.err.println("unexpected NoSuchElementException in DeclListNode.print");
-            System.exit(-1);
+        }
+        return v.postVisit(this);
+    }
+
+    public void unparse(PrintWriter p, int indent) {
+        for (int i = 0; i < myDecls.length; i++) {
+            myDecls[i].unparse(p, indent);
         }
     }
 
-    // list of kids (DeclNodes)
-    private List<DeclNode> myDecls;
+    // the kids themselves, which may be replaced in place
+    public DeclNode[] getDecls() {
+        return myDecls;
+    }
+
+    // array of kids (DeclNodes)
+    private DeclNode[] myDecls;
 }
 
 class FormalsListNode extends ASTnode {
     public FormalsListNode(List<FormalDeclNode> S) {
-        myFormals = S;
+        myFormals = S.toArray(new FormalDeclNode[S.size()]);
     }
 
-    public LinkedList<String> getParamTypes() {
-        LinkedList<String> paramTypes = new LinkedList<String>();
-        Iterator<FormalDeclNode> it = myFormals.iterator();
-        while(it.hasNext()) {
-            paramTypes.addLast(it.next().getType());
+    public Type[] getParamTypes() {
+        Type[] paramTypes = new Type[myFormals.length];
+        for (int i = 0; i < myFormals.length; i++) {
+            paramTypes[i] = myFormals[i].getType();
         }
         return paramTypes;
     }
 
-    public void nameAnalysis(){
-        Iterator<FormalDeclNode> it = myFormals.iterator();
-        while (it.hasNext()) { // if there is at least one element
-            it.next().nameAnalysis();
-        } 
+    public void nameAnalysis(SymTable symTab){
+        for (int i = 0; i < myFormals.length; i++) {
+            myFormals[i].nameAnalysis(symTab);
+        }
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            for (int i = 0; i < myFormals.length; i++) {
+                myFormals[i].accept(v);
+            }
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
-        Iterator<FormalDeclNode> it = myFormals.iterator();
-        if (it.hasNext()) { // if there is at least one element
-            it.next().unparse(p, indent);
-            while (it.hasNext()) {  // print the rest of the list
+        for (int i = 0; i < myFormals.length; i++) {
+            if (i > 0) {  // a comma between two formals
                 p.print(", ");
-                it.next().unparse(p, indent);
             }
-        } 
+            myFormals[i].unparse(p, indent);
+        }
     }
 
-    // list of kids (FormalDeclNodes)
-    private List<FormalDeclNode> myFormals;
+    // array of kids (FormalDeclNodes)
+    private FormalDeclNode[] myFormals;
 }
 
 class FnBodyNode extends ASTnode {
@@ -247,9 +273,17 @@ class FnBodyNode extends ASTnode {
         myStmtList = stmtList;
     }
 
-    public void nameAnalysis(){
-        myDeclList.nameAnalysis();
-        myStmtList.nameAnalysis();
+    public void nameAnalysis(SymTable symTab){
+        myDeclList.nameAnalysis(symTab);
+        myStmtList.nameAnalysis(symTab);
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myDeclList.accept(v);
+            myStmtList.accept(v);
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -264,52 +298,65 @@ class FnBodyNode extends ASTnode {
 
 class StmtListNode extends ASTnode {
     public StmtListNode(List<StmtNode> S) {
-        myStmts = S;
+        myStmts = S.toArray(new StmtNode[S.size()]);
+    }
+
+    public void nameAnalysis(SymTable symTab){
+        for (int i = 0; i < myStmts.length; i++) {
+            myStmts[i].nameAnalysis(symTab);
+        }
     }
 
-    public void nameAnalysis(){
-        Iterator<StmtNode> it = myStmts.iterator();
-        while (it.hasNext()) {
-            it.next().nameAnalysis();
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            for (int i = 0; i < myStmts.length; i++) {
+                myStmts[i].accept(v);
+            }
         }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
-        Iterator<StmtNode> it = myStmts.iterator();
-        while (it.hasNext()) {
-            it.next().unparse(p, indent);
+        for (int i = 0; i < myStmts.length; i++) {
+            myStmts[i].unparse(p, indent);
         }
     }
 
-    // list of kids (StmtNodes)
-    private List<StmtNode> myStmts;
+    // array of kids (StmtNodes)
+    private StmtNode[] myStmts;
 }
 
 class ExpListNode extends ASTnode {
     public ExpListNode(List<ExpNode> S) {
-        myExps = S;
+        myExps = S.toArray(new ExpNode[S.size()]);
     }
 
-    public void nameAnalysis(){
-        Iterator<ExpNode> it = myExps.iterator();
-        while (it.hasNext()) {
-            it.next().nameAnalysis();
+    public void nameAnalysis(SymTable symTab){
+        for (int i = 0; i < myExps.length; i++) {
+            myExps[i].nameAnalysis(symTab);
         }
     }
 
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            for (int i = 0; i < myExps.length; i++) {
+                myExps[i].accept(v);
+            }
+        }
+        return v.postVisit(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
-        Iterator<ExpNode> it = myExps.iterator();
-        if (it.hasNext()) { // if there is at least one element
-            it.next().unparse(p, indent);
-            while (it.hasNext()) {  // print the rest of the list
+        for (int i = 0; i < myExps.length; i++) {
+            if (i > 0) {  // a comma between two expressions
                 p.print(", ");
-                it.next().unparse(p, indent);
             }
-        } 
+            myExps[i].unparse(p, indent);
+        }
     }
 
-    // list of kids (ExpNodes)
-    private List<ExpNode> myExps;
+    // array of kids (ExpNodes)
+    private ExpNode[] myExps;
 }
 
 // **********************************************************************
@@ -317,6 +364,8 @@ class ExpListNode extends ASTnode {
 // **********************************************************************
 
 abstract class DeclNode extends ASTnode {
+    // the name that this declaration declares
+    abstract public String getName();
 }
 
 class VarDeclNode extends DeclNode {
@@ -326,19 +375,16 @@ class VarDeclNode extends DeclNode {
         mySize = size;
     }
 
-    public void nameAnalysis() {
-        String type = myType.getType();
-        myId.setVar(type);
+    public void nameAnalysis(SymTable symTab) {
         myId.setDecl(true);
 	if(myType instanceof StructNode){
-	   if(((StructNode)myType).checkType()){
-		SemSym s = new SemSym(myId.getName(),(symTab.lookupGlobal(myType.getType	())).getDecls(),myType.getType());
+	   if(((StructNode)myType).checkType(symTab)){
+		SemSym s = new SemSym(myId.getName(),myType.getType());
 	      try{
               myId.setDecl(true);
                 myId.setSym(s);
-		((StructNode)myType).setType(s.getType());		
-            if (myId.checkId(s.getType())){
-                symTab.addDecl(s.getName(),s);
+            if (myId.checkId(s.getType(), symTab)){
+                symTab.addDecl(myId.getInternedName(),s);
             }
 	      }catch(DuplicateSymException e){
 
@@ -347,20 +393,20 @@ class VarDeclNode extends DeclNode {
 	      }
 	   }
 	}else{
-           myId.nameAnalysis();
+           myId.setVar(myType.getType());
+           myId.nameAnalysis(symTab);
 	}
     }
 
-    public SemSym getSym(){
+    public SemSym getSym(SymTable symTab){
 	if(myType instanceof StructNode){
-	   if(((StructNode)myType).checkType()){
-           SemSym sym = new SemSym(myId.getName(),(symTab.lookupGlobal(myType.getType())).getDecls(),myType.getType());
-           ((StructNode)myType).setType(sym.getType());
+	   if(((StructNode)myType).checkType(symTab)){
+           SemSym sym = new SemSym(myId.getName(),myType.getType());
            myId.setDecl(true);
            myId.setSym(sym);
-           if (myId.checkId(sym.getType())){
+           if (myId.checkId(sym.getType(), symTab)){
                try {
-                    symTab.addDecl(myId.getName(), sym);
+                    symTab.addDecl(myId.getInternedName(), sym);
                } catch (EmptySymTableException e) {
                    
                } catch (DuplicateSymException e1) {
@@ -371,13 +417,13 @@ class VarDeclNode extends DeclNode {
 		return sym;
 	   }
 	}
-	else if(myId.checkId(myType.getType())){
+	else if(myId.checkId(myType.getType(), symTab)){
             SemSym s = new SemSym(myId.getName(),myType.getType());
 	    try{
             myId.setSym(s);
             myId.setDecl(true);
             //myId.nameAnalysis();
-	        symTab.addDecl(s.getName(),s);
+	        symTab.addDecl(myId.getInternedName(),s);
 	        return s;
 	     }catch(DuplicateSymException e){
 
@@ -388,6 +434,18 @@ class VarDeclNode extends DeclNode {
 	return null;
     }
 
+    public String getName() {
+        return myId.getName();
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myType.accept(v);
+            myId.accept(v);
+        }
+        return v.postVisit(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         doIndent(p, indent);
         myType.unparse(p, 0);
@@ -415,17 +473,15 @@ class FnDeclNode extends DeclNode {
         myBody = body;
     }
 
-    public void nameAnalysis() {
-        String returnType = myType.getType();
-        LinkedList<String> paramTypes = myFormalsList.getParamTypes();
-        int params = paramTypes.size();
-        myId.setFunc(returnType, params, paramTypes);
+    public void nameAnalysis(SymTable symTab) {
+        myId.setFunc(new FnType(myFormalsList.getParamTypes(),
+                                myType.getType()));
         myId.setDecl(true);
-        myId.nameAnalysis();
+        myId.nameAnalysis(symTab);
         /////
         symTab.addScope();
-        myFormalsList.nameAnalysis();
-        myBody.nameAnalysis();
+        myFormalsList.nameAnalysis(symTab);
+        myBody.nameAnalysis(symTab);
         try {
             symTab.removeScope();
         } catch (EmptySymTableException e) {
@@ -433,6 +489,20 @@ class FnDeclNode extends DeclNode {
         }
     }
 
+    public String getName() {
+        return myId.getName();
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myType.accept(v);
+            myId.accept(v);
+            myFormalsList.accept(v);
+            myBody.accept(v);
+        }
+        return v.postVisit(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         doIndent(p, indent);
         myType.unparse(p, 0);
@@ -458,14 +528,26 @@ class FormalDeclNode extends DeclNode {
         myId = id;
     }
 
-    public String getType(){
+    public Type getType(){
         return myType.getType();
     }
 
-    public void nameAnalysis(){
+    public void nameAnalysis(SymTable symTab){
         myId.setVar(myType.getType());
         myId.setDecl(true);
-        myId.nameAnalysis();
+        myId.nameAnalysis(symTab);
+    }
+
+    public String getName() {
+        return myId.getName();
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myType.accept(v);
+            myId.accept(v);
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -485,23 +567,35 @@ class StructDeclNode extends DeclNode {
         myDeclList = declList;
     }
 
-    public void nameAnalysis(){
-        SemSym sym = new SemSym(myId.getName(),myDeclList.getSyms());
+    public void nameAnalysis(SymTable symTab){
+        SemSym sym = new SemSym(myId.getName(),myDeclList.getSyms(symTab));
 	try{
-		if(myId.checkId("struct")){
+		if(myId.checkId(Type.STRUCT, symTab)){
             myId.setSym(sym);
-            symTab.addDecl(myId.getName(),sym);
+            symTab.addDecl(myId.getInternedName(),sym);
 		}
 	    }catch(DuplicateSymException e){
 
 	    }catch(EmptySymTableException e){
 		
 	    }
-    myId.nameAnalysis();
+    myId.nameAnalysis(symTab);
     myId.setDecl(true);
 	//myDeclList.nameAnalysis();
     }
 
+    public String getName() {
+        return myId.getName();
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myId.accept(v);
+            myDeclList.accept(v);
+        }
+        return v.postVisit(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         doIndent(p, indent);
         p.print("struct ");
@@ -523,18 +617,24 @@ class StructDeclNode extends DeclNode {
 // **********************************************************************
 
 abstract class TypeNode extends ASTnode {
-    abstract String getType();
+    // the type named, null for a struct that has not been checked
+    abstract Type getType();
 }
 
 class IntNode extends TypeNode {
     public IntNode() {
     }
 
-    public String getType() {
-        return "int";
+    public Type getType() {
+        return Type.INT;
     }
 
-    public void nameAnalysis(){}
+    public void nameAnalysis(SymTable symTab){}
+
+    public <R> R accept(ASTVisitor<R> v) {
+        v.preVisit(this);
+        return v.postVisit(this);
+    }
 
     public void unparse(PrintWriter p, int indent) {
         p.print("int");
@@ -545,11 +645,16 @@ class BoolNode extends TypeNode {
     public BoolNode() {
     }
 
-    public String getType() {
-        return "bool";
+    public Type getType() {
+        return Type.BOOL;
     }
 
-    public void nameAnalysis(){}
+    public void nameAnalysis(SymTable symTab){}
+
+    public <R> R accept(ASTVisitor<R> v) {
+        v.preVisit(this);
+        return v.postVisit(this);
+    }
 
     public void unparse(PrintWriter p, int indent) {
         p.print("bool");
@@ -560,10 +665,15 @@ class VoidNode extends TypeNode {
     public VoidNode() {
     }
 
-    public void nameAnalysis(){}
+    public void nameAnalysis(SymTable symTab){}
+
+    public Type getType() {
+        return Type.VOID;
+    }
 
-    public String getType() {
-        return "void";
+    public <R> R accept(ASTVisitor<R> v) {
+        v.preVisit(this);
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -576,22 +686,24 @@ class StructNode extends TypeNode {
         myId = id;
     }
 
-    public void nameAnalysis(){}
+    public void nameAnalysis(SymTable symTab){}
 
-    public String getType() {
-        return myId.getName();
+    public Type getType() {
+        return type;
     }
     
-    public boolean checkType(){
-	SemSym s = symTab.lookupGlobal(myId.getName());
+    public boolean checkType(SymTable symTab){
+	SemSym s = symTab.lookupGlobal(myId.getInternedName());
 	if(s == null){
         if (check){
             myId.undeclaredId();
         }
 	    check = false;
-	}else if(!s.getType().equals("struct")){
+	}else if(s.getType() != Type.STRUCT){
 	   myId.structBadDecl();
 	   check = false;
+	}else{
+	   type = s.getStructType();
 	}
 	return check;
     }
@@ -600,12 +712,15 @@ class StructNode extends TypeNode {
         return myId;
     }
 
-    public void setType(String type){
-	this.type = type;
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myId.accept(v);
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
-	if(type.equals("")){
+	if(type == null){
            p.print("struct ");
            myId.unparse(p, 0);
 	}else{
@@ -614,7 +729,7 @@ class StructNode extends TypeNode {
 	}
     }
     private IdNode myId;
-    private String type = "";
+    private StructType type;
     public boolean check = true;
 }
 
@@ -630,8 +745,15 @@ class AssignStmtNode extends StmtNode {
         myAssign = assign;
     }
 
-    public void nameAnalysis(){
-        myAssign.nameAnalysis();
+    public void nameAnalysis(SymTable symTab){
+        myAssign.nameAnalysis(symTab);
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myAssign.accept(v);
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -649,8 +771,15 @@ class PostIncStmtNode extends StmtNode {
         myExp = exp;
     }
 
-    public void nameAnalysis(){
-        myExp.nameAnalysis();
+    public void nameAnalysis(SymTable symTab){
+        myExp.nameAnalysis(symTab);
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myExp.accept(v);
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -668,8 +797,15 @@ class PostDecStmtNode extends StmtNode {
         myExp = exp;
     }
 
-    public void nameAnalysis(){
-        myExp.nameAnalysis();
+    public void nameAnalysis(SymTable symTab){
+        myExp.nameAnalysis(symTab);
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myExp.accept(v);
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -687,8 +823,15 @@ class ReadStmtNode extends StmtNode {
         myExp = e;
     }
 
-    public void nameAnalysis(){
-        myExp.nameAnalysis();
+    public void nameAnalysis(SymTable symTab){
+        myExp.nameAnalysis(symTab);
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myExp.accept(v);
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -707,8 +850,15 @@ class WriteStmtNode extends StmtNode {
         myExp = exp;
     }
 
-    public void nameAnalysis(){
-        myExp.nameAnalysis();
+    public void nameAnalysis(SymTable symTab){
+        myExp.nameAnalysis(symTab);
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myExp.accept(v);
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -729,12 +879,12 @@ class IfStmtNode extends StmtNode {
         myStmtList = slist;
     }
 
-    public void nameAnalysis(){
+    public void nameAnalysis(SymTable symTab){
         ////
         symTab.addScope();
-        myDeclList.nameAnalysis();
-        myExp.nameAnalysis();
-        myStmtList.nameAnalysis();
+        myDeclList.nameAnalysis(symTab);
+        myExp.nameAnalysis(symTab);
+        myStmtList.nameAnalysis(symTab);
         try {
             symTab.removeScope();
         } catch (EmptySymTableException e) {
@@ -742,6 +892,15 @@ class IfStmtNode extends StmtNode {
         }
     }
 
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myExp.accept(v);
+            myDeclList.accept(v);
+            myStmtList.accept(v);
+        }
+        return v.postVisit(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         doIndent(p, indent);
         p.print("if (");
@@ -770,14 +929,14 @@ class IfElseStmtNode extends StmtNode {
         myElseStmtList = slist2;
     }
 
-    public void nameAnalysis(){
+    public void nameAnalysis(SymTable symTab){
         ////
         symTab.addScope();
-        myExp.nameAnalysis();
-        myThenDeclList.nameAnalysis();
-        myThenStmtList.nameAnalysis();
-        myElseDeclList.nameAnalysis();
-        myElseStmtList.nameAnalysis();
+        myExp.nameAnalysis(symTab);
+        myThenDeclList.nameAnalysis(symTab);
+        myThenStmtList.nameAnalysis(symTab);
+        myElseDeclList.nameAnalysis(symTab);
+        myElseStmtList.nameAnalysis(symTab);
         try {
             symTab.removeScope();
         } catch (EmptySymTableException e) {
@@ -785,6 +944,17 @@ class IfElseStmtNode extends StmtNode {
         }
     }
 
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myExp.accept(v);
+            myThenDeclList.accept(v);
+            myThenStmtList.accept(v);
+            myElseDeclList.accept(v);
+            myElseStmtList.accept(v);
+        }
+        return v.postVisit(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         doIndent(p, indent);
         p.print("if (");
@@ -817,12 +987,12 @@ class WhileStmtNode extends StmtNode {
         myStmtList = slist;
     }
 
-    public void nameAnalysis(){
+    public void nameAnalysis(SymTable symTab){
         ////
         symTab.addScope();
-        myExp.nameAnalysis();
-        myDeclList.nameAnalysis();
-        myStmtList.nameAnalysis();
+        myExp.nameAnalysis(symTab);
+        myDeclList.nameAnalysis(symTab);
+        myStmtList.nameAnalysis(symTab);
         try {
             symTab.removeScope();
         } catch (EmptySymTableException e) {
@@ -830,6 +1000,15 @@ class WhileStmtNode extends StmtNode {
         }
     }
 	
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myExp.accept(v);
+            myDeclList.accept(v);
+            myStmtList.accept(v);
+        }
+        return v.postVisit(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         doIndent(p, indent);
         p.print("while (");
@@ -852,8 +1031,15 @@ class CallStmtNode extends StmtNode {
         myCall = call;
     }
 
-    public void nameAnalysis(){
-        myCall.nameAnalysis();
+    public void nameAnalysis(SymTable symTab){
+        myCall.nameAnalysis(symTab);
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myCall.accept(v);
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -871,10 +1057,19 @@ class ReturnStmtNode extends StmtNode {
         myExp = exp;
     }
 
-    public void nameAnalysis(){
+    public void nameAnalysis(SymTable symTab){
         if (myExp != null) {
-            myExp.nameAnalysis();
+            myExp.nameAnalysis(symTab);
+        }
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            if (myExp != null) {
+                myExp.accept(v);
+            }
         }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -910,13 +1105,29 @@ class IntLitNode extends ExpNode {
         myIntVal = intVal;
     }
 
-    public void nameAnalysis(){
+    public void nameAnalysis(SymTable symTab){
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        v.preVisit(this);
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
         p.print(myIntVal);
     }
 
+    public int getIntVal() {
+        return myIntVal;
+    }
+
+    // takes the position of the same literal in another version of the
+    // program (see IncrementalAnalysis)
+    public void setPosition(IntLitNode other) {
+        myLineNum = other.myLineNum;
+        myCharNum = other.myCharNum;
+    }
+
     private int myLineNum;
     private int myCharNum;
     private int myIntVal;
@@ -929,12 +1140,28 @@ class StringLitNode extends ExpNode {
         myStrVal = strVal;
     }
 
-    public void nameAnalysis(){}
+    public void nameAnalysis(SymTable symTab){}
+
+    public <R> R accept(ASTVisitor<R> v) {
+        v.preVisit(this);
+        return v.postVisit(this);
+    }
 
     public void unparse(PrintWriter p, int indent) {
         p.print(myStrVal);
     }
 
+    public String getStrVal() {
+        return myStrVal;
+    }
+
+    // takes the position of the same literal in another version of the
+    // program (see IncrementalAnalysis)
+    public void setPosition(StringLitNode other) {
+        myLineNum = other.myLineNum;
+        myCharNum = other.myCharNum;
+    }
+
     private int myLineNum;
     private int myCharNum;
     private String myStrVal;
@@ -946,12 +1173,24 @@ class TrueNode extends ExpNode {
         myCharNum = charNum;
     }
 
-    public void nameAnalysis(){}
+    public void nameAnalysis(SymTable symTab){}
+
+    public <R> R accept(ASTVisitor<R> v) {
+        v.preVisit(this);
+        return v.postVisit(this);
+    }
 
     public void unparse(PrintWriter p, int indent) {
         p.print("true");
     }
 
+    // takes the position of the same literal in another version of the
+    // program (see IncrementalAnalysis)
+    public void setPosition(TrueNode other) {
+        myLineNum = other.myLineNum;
+        myCharNum = other.myCharNum;
+    }
+
     private int myLineNum;
     private int myCharNum;
 }
@@ -962,27 +1201,37 @@ class FalseNode extends ExpNode {
         myCharNum = charNum;
     }
 
-    public void nameAnalysis(){}
+    public void nameAnalysis(SymTable symTab){}
+
+    public <R> R accept(ASTVisitor<R> v) {
+        v.preVisit(this);
+        return v.postVisit(this);
+    }
 
     public void unparse(PrintWriter p, int indent) {
         p.print("false");
     }
 
+    // takes the position of the same literal in another version of the
+    // program (see IncrementalAnalysis)
+    public void setPosition(FalseNode other) {
+        myLineNum = other.myLineNum;
+        myCharNum = other.myCharNum;
+    }
+
     private int myLineNum;
     private int myCharNum;
 }
 
 class IdNode extends ExpNode {
-    public IdNode(int lineNum, int charNum, String strVal) {
+    public IdNode(int lineNum, int charNum, Name name) {
         myLineNum = lineNum;
         myCharNum = charNum;
-        myStrVal = strVal;
-        myType = "";
+        myName = name;
+        myStrVal = name.getText();
+        myType = null;
         isFunc = false;
         isDupl = false;
-        returnType = "";
-        params = 0;
-        paramTypes = null;
         mySym = null;
     }
 
@@ -990,51 +1239,53 @@ class IdNode extends ExpNode {
         return myStrVal;
     }
 
+    public Name getInternedName(){
+        return myName;
+    }
+
+    // takes the position of the same identifier in another version of the
+    // program (see IncrementalAnalysis)
+    public void setPosition(IdNode other) {
+        myLineNum = other.myLineNum;
+        myCharNum = other.myCharNum;
+    }
+
     public void setSym(SemSym sym){
         mySym = sym;
         myStrVal = sym.getName();
     }
 
-    public void setVar(String type){
+    public void setVar(Type type){
         myType = type;
     }
 
-    public void setFunc(String returnType, int params, LinkedList<String> paramTypes){
+    public void setFunc(FnType type){
         isFunc = true;
-        myType = returnType;
-        this.returnType = returnType;
-        this.params = params;
-        this.paramTypes = paramTypes;
+        myType = type;
     }
 
-    public void nameAnalysis(){
+    public void nameAnalysis(SymTable symTab){
         if (!isDecl){
-            SemSym sym = symTab.lookupGlobal(myStrVal);
+            SemSym sym = symTab.lookupGlobal(myName);
             if (sym == null) {
-                ErrMsg.fatal(myLineNum, myCharNum, "Undeclaired identifier");
+                ErrMsg.fatal(myLineNum, myCharNum, ErrMsg.UNDECLAIRED);
                 return;
             }
             mySym = sym;
-            if (sym.isFunc()){
-                returnType = sym.getReturnType();
-                paramTypes = new LinkedList<String>(sym.getParamTypes());
-            }
-            else {
-                myType = sym.getType();
-            }
+            myType = sym.getType();
             return;
         }
         if (isFunc) {
             // For function declarations
             try {
-                Iterator<String> it = paramTypes.iterator();
-                while(it.hasNext()) {
-                    if (it.next().equals("void")) {
-                        ErrMsg.fatal(myLineNum, myCharNum, "Non-fuction declared void");
+                Type[] paramTypes = ((FnType)myType).getParamTypes();
+                for (int i = 0; i < paramTypes.length; i++) {
+                    if (paramTypes[i].isVoid()) {
+                        ErrMsg.fatal(myLineNum, myCharNum, ErrMsg.VOID_NON_FUNCTION);
                     }
                 }
-                mySym = new SemSym(myStrVal, returnType, params, paramTypes);
-                symTab.addDecl(myStrVal, mySym);
+                mySym = new SemSym(myStrVal, myType);
+                symTab.addDecl(myName, mySym);
             } catch (DuplicateSymException e) {
 
             } catch (EmptySymTableException e) {
@@ -1044,46 +1295,51 @@ class IdNode extends ExpNode {
         else {
             // For variable declarations
             try {
-                if (myType.equals("void")) {
-                    ErrMsg.fatal(myLineNum, myCharNum, "Non-fuction declared void");
+                if (myType.isVoid()) {
+                    ErrMsg.fatal(myLineNum, myCharNum, ErrMsg.VOID_NON_FUNCTION);
                 }
                 mySym = new SemSym(myStrVal, myType);
-                symTab.addDecl(myStrVal, mySym);
+                symTab.addDecl(myName, mySym);
             } catch (DuplicateSymException e) {
-                ErrMsg.fatal(myLineNum, myCharNum, "Multiply declared identifier");
+                ErrMsg.fatal(myLineNum, myCharNum, ErrMsg.MULTIPLY_DECLARED);
             } catch (EmptySymTableException e) {
                 //TODO maybe to do with scopes?
             }
         }
     }
 
-    public boolean checkId(String type){
+    public boolean checkId(Type type, SymTable symTab){
 	boolean check = true;
-	if (type.equals("void")) {
-            ErrMsg.fatal(myLineNum, myCharNum, "Non-fuction declared void");
+	if (type.isVoid()) {
+            ErrMsg.fatal(myLineNum, myCharNum, ErrMsg.VOID_NON_FUNCTION);
 	    check = false;
         }
-	if(symTab.lookupLocal(myStrVal) != null){
-	    ErrMsg.fatal(myLineNum, myCharNum, "Multiply declared identifier");
+	if(symTab.lookupLocal(myName) != null){
+	    ErrMsg.fatal(myLineNum, myCharNum, ErrMsg.MULTIPLY_DECLARED);
 	    check = false;
 	}
 	return check;
     }
 
     public void undeclaredId(){
-	ErrMsg.fatal(myLineNum, myCharNum, "Undeclared identifier");
+	ErrMsg.fatal(myLineNum, myCharNum, ErrMsg.UNDECLARED);
     }
 
     public void structBadDecl(){
-	ErrMsg.fatal(myLineNum, myCharNum, "Invalid name of struct type");
+	ErrMsg.fatal(myLineNum, myCharNum, ErrMsg.BAD_STRUCT_TYPE);
     }
 
     public void structLhsAccess(){
-	ErrMsg.fatal(myLineNum, myCharNum, "Dot-access of non-struct type");
+	ErrMsg.fatal(myLineNum, myCharNum, ErrMsg.DOT_ACCESS_NON_STRUCT);
     }
 
     public void structRhsAccess(){
-	ErrMsg.fatal(myLineNum, myCharNum, "Invalid struct field name");
+	ErrMsg.fatal(myLineNum, myCharNum, ErrMsg.BAD_STRUCT_FIELD);
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        v.preVisit(this);
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -1095,35 +1351,33 @@ class IdNode extends ExpNode {
 	
         if (mySym.isFunc()) {
             p.print(myStrVal);
-            List<String> types = mySym.getParamTypes();
-            returnType = mySym.getReturnType();
+            Type[] types = mySym.getParamTypes();
             p.print("(");
-            Iterator<String> it = types.iterator();
-            if (it.hasNext()) { // if there is at least one element
-                p.print(it.next());
-                while (it.hasNext()) {  // print the rest of the list
+            for (int i = 0; i < types.length; i++) {
+                if (i > 0) {
                     p.print(", ");
-                    p.print(it.next());
                 }
+                p.print(types[i]);
             }
-            p.print("->" + returnType + ")");
+            p.print("->");
+            p.print(mySym.getReturnType());
+            p.print(")");
         }
         else {
-            myType = mySym.getType();
             p.print(myStrVal);
-            p.print("(" + myType + ")");
+            p.print("(");
+            p.print(mySym.getType());
+            p.print(")");
         }
     }
 
     private int myLineNum;
     private int myCharNum;
+    private Name myName;
     private String myStrVal;
-    public String myType;
+    public Type myType;  // an FnType if isFunc
     public boolean isFunc;
-    public String returnType;
-    public int params;
     public boolean isDupl;
-    public LinkedList<String> paramTypes;
     public SemSym mySym;
 }
 
@@ -1133,12 +1387,12 @@ class DotAccessExpNode extends ExpNode {
         myId = id;
     }
 
-    public void nameAnalysis(){
+    public void nameAnalysis(SymTable symTab){
 	if(myLoc instanceof IdNode){ //only one . access
-	    SemSym s = symTab.lookupGlobal(((IdNode)myLoc).getName());
+	    SemSym s = symTab.lookupGlobal(((IdNode)myLoc).getInternedName());
 	    if(s == null){
 		((IdNode)myLoc).undeclaredId();
-	    }else if(!s.getActualType().equals("struct")){
+	    }else if(!s.isStruct()){
 		((IdNode)myLoc).structLhsAccess();
 	    }else{
 		SemSym sym = s.getDecls().get(myId.getName());
@@ -1152,16 +1406,16 @@ class DotAccessExpNode extends ExpNode {
 	    }
 	    //maybe need to store something
 	}else {//more then one . access
-	    multiNameAnalysis();
+	    multiNameAnalysis(symTab);
 	}
     }
 
-    public SemSym multiNameAnalysis(){
+    public SemSym multiNameAnalysis(SymTable symTab){
 	if(myLoc instanceof IdNode){
-	    SemSym s = symTab.lookupGlobal(((IdNode)myLoc).getName());
+	    SemSym s = symTab.lookupGlobal(((IdNode)myLoc).getInternedName());
 	    if(s == null){
 		((IdNode)myLoc).undeclaredId();
-	    }else if(!s.getActualType().equals("struct")){
+	    }else if(!s.isStruct()){
 		((IdNode)myLoc).structLhsAccess();
 	    }else{
 		SemSym sym = s.getDecls().get(myId.getName());
@@ -1178,11 +1432,11 @@ class DotAccessExpNode extends ExpNode {
 	    
 	}
 	//give the sym?
-	SemSym lastSym = ((DotAccessExpNode)myLoc).multiNameAnalysis();
+	SemSym lastSym = ((DotAccessExpNode)myLoc).multiNameAnalysis(symTab);
 	if(lastSym == null){
 	    return null;
 	}else{
-	    if(!lastSym.getActualType().equals("struct")){
+	    if(!lastSym.isStruct()){
 		lastSym.getId().structLhsAccess();
 	    }else{
 		SemSym sym = lastSym.getDecls().get(myId.getName());
@@ -1198,6 +1452,14 @@ class DotAccessExpNode extends ExpNode {
 	return null;
     }
 
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myLoc.accept(v);
+            myId.accept(v);
+        }
+        return v.postVisit(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
 	    p.print("");
         myLoc.unparse(p, 0);
@@ -1216,9 +1478,17 @@ class AssignNode extends ExpNode {
         myExp = exp;
     }
 
-    public void nameAnalysis(){
-        myLhs.nameAnalysis();
-        myExp.nameAnalysis();
+    public void nameAnalysis(SymTable symTab){
+        myLhs.nameAnalysis(symTab);
+        myExp.nameAnalysis(symTab);
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myLhs.accept(v);
+            myExp.accept(v);
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -1242,12 +1512,22 @@ class CallExpNode extends ExpNode {
 
     public CallExpNode(IdNode name) {
         myId = name;
-        myExpList = new ExpListNode(new LinkedList<ExpNode>());
+        myExpList = new ExpListNode(new ArrayList<ExpNode>());
     }
 
-    public void nameAnalysis(){
-        myId.nameAnalysis();
-        myExpList.nameAnalysis();
+    public void nameAnalysis(SymTable symTab){
+        myId.nameAnalysis(symTab);
+        myExpList.nameAnalysis(symTab);
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myId.accept(v);
+            if (myExpList != null) {
+                myExpList.accept(v);
+            }
+        }
+        return v.postVisit(this);
     }
 
     // ** unparse **
@@ -1294,8 +1574,15 @@ class UnaryMinusNode extends UnaryExpNode {
         super(exp);
     }
 
-    public void nameAnalysis(){
-        myExp.nameAnalysis();
+    public void nameAnalysis(SymTable symTab){
+        myExp.nameAnalysis(symTab);
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myExp.accept(v);
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -1310,8 +1597,15 @@ class NotNode extends UnaryExpNode {
         super(exp);
     }
 
-    public void nameAnalysis(){
-        myExp.nameAnalysis();
+    public void nameAnalysis(SymTable symTab){
+        myExp.nameAnalysis(symTab);
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myExp.accept(v);
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -1330,9 +1624,17 @@ class PlusNode extends BinaryExpNode {
         super(exp1, exp2);
     }
 
-    public void nameAnalysis(){
-        myExp1.nameAnalysis();
-        myExp2.nameAnalysis();
+    public void nameAnalysis(SymTable symTab){
+        myExp1.nameAnalysis(symTab);
+        myExp2.nameAnalysis(symTab);
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myExp1.accept(v);
+            myExp2.accept(v);
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -1349,9 +1651,17 @@ class MinusNode extends BinaryExpNode {
         super(exp1, exp2);
     }
 
-    public void nameAnalysis(){
-        myExp1.nameAnalysis();
-        myExp2.nameAnalysis();
+    public void nameAnalysis(SymTable symTab){
+        myExp1.nameAnalysis(symTab);
+        myExp2.nameAnalysis(symTab);
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myExp1.accept(v);
+            myExp2.accept(v);
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -1368,9 +1678,17 @@ class TimesNode extends BinaryExpNode {
         super(exp1, exp2);
     }
 
-    public void nameAnalysis(){
-        myExp1.nameAnalysis();
-        myExp2.nameAnalysis();
+    public void nameAnalysis(SymTable symTab){
+        myExp1.nameAnalysis(symTab);
+        myExp2.nameAnalysis(symTab);
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myExp1.accept(v);
+            myExp2.accept(v);
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -1387,9 +1705,17 @@ class DivideNode extends BinaryExpNode {
         super(exp1, exp2);
     }
 
-    public void nameAnalysis(){
-        myExp1.nameAnalysis();
-        myExp2.nameAnalysis();
+    public void nameAnalysis(SymTable symTab){
+        myExp1.nameAnalysis(symTab);
+        myExp2.nameAnalysis(symTab);
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myExp1.accept(v);
+            myExp2.accept(v);
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -1406,9 +1732,17 @@ class AndNode extends BinaryExpNode {
         super(exp1, exp2);
     }
 
-    public void nameAnalysis(){
-        myExp1.nameAnalysis();
-        myExp2.nameAnalysis();
+    public void nameAnalysis(SymTable symTab){
+        myExp1.nameAnalysis(symTab);
+        myExp2.nameAnalysis(symTab);
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myExp1.accept(v);
+            myExp2.accept(v);
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -1425,9 +1759,17 @@ class OrNode extends BinaryExpNode {
         super(exp1, exp2);
     }
 
-    public void nameAnalysis(){
-        myExp1.nameAnalysis();
-        myExp2.nameAnalysis();
+    public void nameAnalysis(SymTable symTab){
+        myExp1.nameAnalysis(symTab);
+        myExp2.nameAnalysis(symTab);
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myExp1.accept(v);
+            myExp2.accept(v);
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -1444,9 +1786,17 @@ class EqualsNode extends BinaryExpNode {
         super(exp1, exp2);
     }
 
-    public void nameAnalysis(){
-        myExp1.nameAnalysis();
-        myExp2.nameAnalysis();
+    public void nameAnalysis(SymTable symTab){
+        myExp1.nameAnalysis(symTab);
+        myExp2.nameAnalysis(symTab);
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myExp1.accept(v);
+            myExp2.accept(v);
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -1463,9 +1813,17 @@ class NotEqualsNode extends BinaryExpNode {
         super(exp1, exp2);
     }
 
-    public void nameAnalysis(){
-        myExp1.nameAnalysis();
-        myExp2.nameAnalysis();
+    public void nameAnalysis(SymTable symTab){
+        myExp1.nameAnalysis(symTab);
+        myExp2.nameAnalysis(symTab);
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myExp1.accept(v);
+            myExp2.accept(v);
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -1482,9 +1840,17 @@ class LessNode extends BinaryExpNode {
         super(exp1, exp2);
     }
 
-    public void nameAnalysis(){
-        myExp1.nameAnalysis();
-        myExp2.nameAnalysis();
+    public void nameAnalysis(SymTable symTab){
+        myExp1.nameAnalysis(symTab);
+        myExp2.nameAnalysis(symTab);
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myExp1.accept(v);
+            myExp2.accept(v);
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -1501,9 +1867,17 @@ class GreaterNode extends BinaryExpNode {
         super(exp1, exp2);
     }
 
-    public void nameAnalysis(){
-        myExp1.nameAnalysis();
-        myExp2.nameAnalysis();
+    public void nameAnalysis(SymTable symTab){
+        myExp1.nameAnalysis(symTab);
+        myExp2.nameAnalysis(symTab);
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myExp1.accept(v);
+            myExp2.accept(v);
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -1520,9 +1894,17 @@ class LessEqNode extends BinaryExpNode {
         super(exp1, exp2);
     }
 
-    public void nameAnalysis(){
-        myExp1.nameAnalysis();
-        myExp2.nameAnalysis();
+    public void nameAnalysis(SymTable symTab){
+        myExp1.nameAnalysis(symTab);
+        myExp2.nameAnalysis(symTab);
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myExp1.accept(v);
+            myExp2.accept(v);
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -1539,9 +1921,17 @@ class GreaterEqNode extends BinaryExpNode {
         super(exp1, exp2);
     }
 
-    public void nameAnalysis(){
-        myExp1.nameAnalysis();
-        myExp2.nameAnalysis();
+    public void nameAnalysis(SymTable symTab){
+        myExp1.nameAnalysis(symTab);
+        myExp2.nameAnalysis(symTab);
+    }
+
+    public <R> R accept(ASTVisitor<R> v) {
+        if (v.preVisit(this)) {
+            myExp1.accept(v);
+            myExp2.accept(v);
+        }
+        return v.postVisit(this);
     }
 
     public void unparse(PrintWriter p, int indent) {